@@ -1,9 +1,12 @@
 package com.hospital.citas;
 
+import com.hospital.citas.config.SedesProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
+@EnableConfigurationProperties(SedesProperties.class)
 public class CitasApplication {
 
 	public static void main(String[] args) {
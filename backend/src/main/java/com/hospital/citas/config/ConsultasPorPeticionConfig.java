@@ -0,0 +1,54 @@
+package com.hospital.citas.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Métrica hospital.consultas.por_peticion con las sentencias SQL que emite cada endpoint, para
+// observar la tendencia en producción. Solo cuenta las sentencias del hilo de la petición; los
+// límites por endpoint se comprueban en las pruebas (PresupuestoConsultasTest), que fallan el build.
+@Configuration
+public class ConsultasPorPeticionConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry registry;
+
+    @Autowired
+    public ConsultasPorPeticionConfig(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer contadorConsultasCustomizer() {
+        return propiedades -> propiedades.put(AvailableSettings.STATEMENT_INSPECTOR, new ContadorConsultas());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry interceptores) {
+        interceptores.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                ContadorConsultas.reiniciar();
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                        Exception ex) {
+                if (handler instanceof HandlerMethod metodo) {
+                    String endpoint = metodo.getBeanType().getSimpleName() + "." + metodo.getMethod().getName();
+                    registry.summary("hospital.consultas.por_peticion", "endpoint", endpoint)
+                            .record(ContadorConsultas.obtener());
+                }
+            }
+        }).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,22 @@
+package com.hospital.citas.config;
+
+// Indica, para el hilo actual, que las lecturas deben ir al primario aunque sean de solo lectura
+public final class ContextoRuteo {
+
+    private static final ThreadLocal<Boolean> FORZAR_PRIMARIO = ThreadLocal.withInitial(() -> false);
+
+    private ContextoRuteo() {
+    }
+
+    public static boolean isPrimarioForzado() {
+        return FORZAR_PRIMARIO.get();
+    }
+
+    public static void forzarPrimario() {
+        FORZAR_PRIMARIO.set(true);
+    }
+
+    public static void limpiar() {
+        FORZAR_PRIMARIO.remove();
+    }
+}
@@ -0,0 +1,40 @@
+package com.hospital.citas.config;
+
+import java.util.function.Supplier;
+
+// Sede (hospital) cuyos datos usa el hilo actual; SedesRuteoDataSource elige con ella la base de datos.
+// Con las sedes deshabilitadas siempre es null.
+public final class ContextoSede {
+
+    private static final ThreadLocal<String> SEDE = new ThreadLocal<>();
+
+    private ContextoSede() {
+    }
+
+    public static String getSede() {
+        return SEDE.get();
+    }
+
+    public static void establecer(String sede) {
+        SEDE.set(sede);
+    }
+
+    public static void limpiar() {
+        SEDE.remove();
+    }
+
+    // Ejecuta la llamada con la sede indicada y restaura la anterior al terminar
+    public static <T> T ejecutarEn(String sede, Supplier<T> llamada) {
+        String anterior = SEDE.get();
+        SEDE.set(sede);
+        try {
+            return llamada.get();
+        } finally {
+            if (anterior != null) {
+                SEDE.set(anterior);
+            } else {
+                SEDE.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.hospital.citas.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Lectura de las propias escrituras: tras una modificación el cliente recibe una cookie de
+// corta duración y, mientras la conserve, sus lecturas se atienden desde el primario
+// para no ver una réplica que aún no recibe el cambio. La duración (hospital.replicas.lectura-propia-s)
+// es el retraso máximo de replicación que se tolera; RuteoDataSource retira las réplicas que lo superan.
+@Component
+@ConditionalOnProperty(name = "hospital.replicas.habilitadas", havingValue = "true")
+public class LecturaPropiaFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "hospital-primario";
+
+    private final int segundos;
+
+    public LecturaPropiaFilter(@Value("${hospital.replicas.lectura-propia-s:5}") int segundos) {
+        this.segundos = segundos;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean lectura = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        if (!lectura) {
+            Cookie cookie = new Cookie(COOKIE, "1");
+            cookie.setPath("/");
+            cookie.setMaxAge(segundos);
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+        } else if (tieneCookie(request)) {
+            ContextoRuteo.forzarPrimario();
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ContextoRuteo.limpiar();
+        }
+    }
+
+    private boolean tieneCookie(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return false;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,99 @@
+package com.hospital.citas.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Compartimentos separados de concurrencia para lecturas y escrituras de la API.
+// Una ráfaga de reservas agota solo el compartimento de escrituras; las peticiones que no
+// obtienen lugar dentro del tiempo de espera se rechazan con 503 y Retry-After.
+// Entre los dos compartimentos no pueden superar las conexiones del pool menos las reservadas
+// para las tareas de fondo: si no, las peticiones admitidas esperan conexión dentro del pool
+// (hasta connection-timeout) en lugar de rechazarse al momento.
+@Component
+public class LimiteConcurrenciaFilter extends OncePerRequestFilter {
+
+    private final Semaphore lecturas;
+    private final Semaphore escrituras;
+    private final long esperaMs;
+    private final String reintentarDespues;
+    private final Counter rechazosLectura;
+    private final Counter rechazosEscritura;
+
+    @Autowired
+    public LimiteConcurrenciaFilter(MeterRegistry registry,
+                                    @Value("${hospital.bulkhead.lecturas.max:4}") int maxLecturas,
+                                    @Value("${hospital.bulkhead.escrituras.max:2}") int maxEscrituras,
+                                    @Value("${hospital.bulkhead.conexiones-reservadas:4}") int reservadas,
+                                    @Value("${spring.datasource.hikari.maximum-pool-size:10}") int conexiones,
+                                    @Value("${hospital.bulkhead.espera-ms:200}") long esperaMs,
+                                    @Value("${hospital.bulkhead.retry-after-s:1}") int reintentarDespues) {
+        if (maxLecturas + maxEscrituras + reservadas > conexiones) {
+            throw new IllegalStateException(String.format(
+                    "Los compartimentos (%d lecturas + %d escrituras) y las %d conexiones reservadas superan " +
+                    "el pool de %d conexiones", maxLecturas, maxEscrituras, reservadas, conexiones));
+        }
+        this.lecturas = new Semaphore(maxLecturas);
+        this.escrituras = new Semaphore(maxEscrituras);
+        this.esperaMs = esperaMs;
+        this.reintentarDespues = String.valueOf(reintentarDespues);
+
+        this.rechazosLectura = Counter.builder("hospital.bulkhead.rechazos").tag("tipo", "lectura").register(registry);
+        this.rechazosEscritura = Counter.builder("hospital.bulkhead.rechazos").tag("tipo", "escritura").register(registry);
+        Gauge.builder("hospital.bulkhead.disponibles", lecturas, Semaphore::availablePermits)
+                .tag("tipo", "lectura").register(registry);
+        Gauge.builder("hospital.bulkhead.disponibles", escrituras, Semaphore::availablePermits)
+                .tag("tipo", "escritura").register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/")
+                || HttpMethod.OPTIONS.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean lectura = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        Semaphore compartimento = lectura ? lecturas : escrituras;
+
+        boolean adquirido;
+        try {
+            adquirido = compartimento.tryAcquire(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            adquirido = false;
+        }
+
+        if (!adquirido) {
+            (lectura ? rechazosLectura : rechazosEscritura).increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, reintentarDespues);
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("Servicio saturado, intente de nuevo más tarde");
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            compartimento.release();
+        }
+    }
+}
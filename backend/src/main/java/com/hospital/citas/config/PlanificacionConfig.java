@@ -0,0 +1,13 @@
+package com.hospital.citas.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Tareas programadas (outbox, recordatorios, recálculos, limpieza). Las pruebas las desactivan
+// con hospital.planificacion.habilitada=false para que no emitan sentencias durante una medición.
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "hospital.planificacion.habilitada", havingValue = "true", matchIfMissing = true)
+public class PlanificacionConfig {
+}
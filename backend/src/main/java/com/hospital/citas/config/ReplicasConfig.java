@@ -0,0 +1,68 @@
+package com.hospital.citas.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Activa el ruteo de lecturas a réplicas. El proxy perezoso es necesario para que la
+// conexión se elija cuando la transacción ya está marcada como de solo lectura.
+@Configuration
+@ConditionalOnProperty(name = "hospital.replicas.habilitadas", havingValue = "true")
+public class ReplicasConfig {
+
+    private RuteoDataSource ruteoDataSource;
+
+    @Bean
+    public RuteoDataSource ruteoDataSource(DataSourceProperties propiedades,
+                                           @Value("${hospital.replicas.urls}") List<String> urls,
+                                           @Value("${hospital.replicas.usuario:${spring.datasource.username}}") String usuario,
+                                           @Value("${hospital.replicas.clave:${spring.datasource.password}}") String clave,
+                                           @Value("${hospital.replicas.consulta-retraso:}") String consultaRetraso,
+                                           @Value("${hospital.replicas.lectura-propia-s:5}") int lecturaPropiaSegundos,
+                                           @Value("${spring.datasource.hikari.maximum-pool-size:10}") int conexiones) {
+        // Los pools creados a mano no reciben spring.datasource.hikari.*; el tamaño se fija aquí
+        // porque LimiteConcurrenciaFilter dimensiona sus compartimentos con él
+        HikariDataSource primario = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primario.setMaximumPoolSize(conexiones);
+        List<DataSource> replicas = urls.stream()
+                .map(url -> {
+                    HikariDataSource replica = DataSourceBuilder.create()
+                            .type(HikariDataSource.class)
+                            .url(url)
+                            .username(usuario)
+                            .password(clave)
+                            .build();
+                    replica.setMaximumPoolSize(conexiones);
+                    return replica;
+                })
+                .collect(Collectors.toList());
+        // Una réplica más atrasada que la ventana de lectura propia mostraría datos anteriores a
+        // la última escritura del cliente en cuanto caduque su cookie, así que deja de usarse
+        ruteoDataSource = new RuteoDataSource(primario, replicas, consultaRetraso, lecturaPropiaSegundos);
+        return ruteoDataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(RuteoDataSource ruteoDataSource) {
+        return new LazyConnectionDataSourceProxy(ruteoDataSource);
+    }
+
+    @Scheduled(fixedDelayString = "${hospital.replicas.verificacion-ms:5000}")
+    public void verificarReplicas() {
+        if (ruteoDataSource != null) {
+            ruteoDataSource.verificarReplicas();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.hospital.citas.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Envía las transacciones de solo lectura a una réplica sana (en turno rotativo)
+// y todo lo demás al primario. Si no hay réplicas sanas, las lecturas van al primario.
+// Una réplica es sana si responde y, cuando hay consulta de retraso, si no va más atrasada
+// que el máximo indicado: la lectura de las propias escrituras depende de ello.
+public class RuteoDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(RuteoDataSource.class);
+
+    static final String PRIMARIO = "primario";
+
+    private final List<DataSource> replicas;
+    private final String consultaRetraso;
+    private final int retrasoMaximoSegundos;
+    private volatile boolean[] sanas;
+    private final AtomicInteger turno = new AtomicInteger();
+
+    public RuteoDataSource(DataSource primario, List<DataSource> replicas,
+                           String consultaRetraso, int retrasoMaximoSegundos) {
+        this.replicas = replicas;
+        this.consultaRetraso = consultaRetraso;
+        this.retrasoMaximoSegundos = retrasoMaximoSegundos;
+        boolean[] inicial = new boolean[replicas.size()];
+
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(PRIMARIO, primario);
+        for (int i = 0; i < replicas.size(); i++) {
+            destinos.put(i, replicas.get(i));
+            inicial[i] = true;
+        }
+        this.sanas = inicial;
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ContextoRuteo.isPrimarioForzado()) {
+            return PRIMARIO;
+        }
+        boolean[] actuales = sanas;
+        int inicio = Math.floorMod(turno.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int indice = (inicio + i) % replicas.size();
+            if (actuales[indice]) {
+                return indice;
+            }
+        }
+        return PRIMARIO;
+    }
+
+    // Se invoca periódicamente para marcar las réplicas que dejan de responder
+    public synchronized void verificarReplicas() {
+        boolean[] nuevas = new boolean[replicas.size()];
+        for (int i = 0; i < replicas.size(); i++) {
+            boolean sana;
+            try (Connection conexion = replicas.get(i).getConnection()) {
+                sana = conexion.isValid(2) && retrasoAceptable(conexion);
+            } catch (Exception e) {
+                sana = false;
+            }
+            if (sana != sanas[i]) {
+                log.warn("Réplica {} {}", i, sana ? "disponible de nuevo"
+                        : "no disponible o atrasada, sus lecturas irán a otra réplica o al primario");
+            }
+            nuevas[i] = sana;
+        }
+        sanas = nuevas;
+    }
+
+    // La consulta devuelve el retraso de la réplica en segundos en la primera columna; NULL o
+    // ninguna fila indica una réplica que no está replicando
+    private boolean retrasoAceptable(Connection conexion) throws SQLException {
+        if (consultaRetraso == null || consultaRetraso.isBlank()) {
+            return true;
+        }
+        try (Statement sentencia = conexion.createStatement();
+             ResultSet resultado = sentencia.executeQuery(consultaRetraso)) {
+            return resultado.next() && resultado.getObject(1) != null
+                    && resultado.getDouble(1) <= retrasoMaximoSegundos;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.hospital.citas.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Toma la sede de la cabecera X-Sede; sin cabecera se atiende en la sede predeterminada
+@Component
+@ConditionalOnProperty(name = "hospital.sedes.habilitadas", havingValue = "true")
+public class SedeFilter extends OncePerRequestFilter {
+
+    static final String CABECERA = "X-Sede";
+
+    private final Sedes sedes;
+
+    public SedeFilter(Sedes sedes) {
+        this.sedes = sedes;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String sede = request.getHeader(CABECERA);
+        if (sede != null && !sedes.existe(sede)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Sede desconocida: " + sede);
+            return;
+        }
+
+        ContextoSede.establecer(sede != null ? sede : sedes.actual());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ContextoSede.limpiar();
+        }
+    }
+}
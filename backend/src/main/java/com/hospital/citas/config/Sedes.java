@@ -0,0 +1,97 @@
+package com.hospital.citas.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Sedes configuradas y ejecución de una misma tarea en todas ellas. Con las sedes deshabilitadas
+// hay una única sede sin nombre (null) y las tareas se ejecutan en el hilo que las pide.
+@Component
+public class Sedes {
+
+    private final boolean habilitadas;
+    private final String predeterminada;
+    private final List<String> nombres;
+    private final ExecutorService consultas;
+
+    @Autowired
+    public Sedes(SedesProperties propiedades) {
+        this.habilitadas = propiedades.isHabilitadas();
+        if (habilitadas) {
+            List<String> configuradas = new ArrayList<>();
+            configuradas.add(propiedades.getPredeterminada());
+            propiedades.getFuentes().keySet().stream()
+                    .filter(nombre -> !nombre.equals(propiedades.getPredeterminada()))
+                    .forEach(configuradas::add);
+            this.predeterminada = propiedades.getPredeterminada();
+            this.nombres = Collections.unmodifiableList(configuradas);
+
+            AtomicInteger hilos = new AtomicInteger();
+            this.consultas = Executors.newFixedThreadPool(configuradas.size(), tarea -> {
+                Thread hilo = new Thread(tarea, "sedes-" + hilos.incrementAndGet());
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        } else {
+            this.predeterminada = null;
+            this.nombres = Collections.singletonList(null);
+            this.consultas = null;
+        }
+    }
+
+    public boolean isHabilitadas() {
+        return habilitadas;
+    }
+
+    public List<String> getNombres() {
+        return nombres;
+    }
+
+    public boolean existe(String sede) {
+        return habilitadas && nombres.contains(sede);
+    }
+
+    // Sede del hilo actual; sin sede explícita se usa la predeterminada
+    public String actual() {
+        String sede = ContextoSede.getSede();
+        return sede != null ? sede : predeterminada;
+    }
+
+    // Ejecuta la tarea en todas las sedes en paralelo, cada una con su sede en el contexto,
+    // y devuelve los resultados en el orden de getNombres()
+    public <T> List<T> enCadaSede(Function<String, T> tarea) {
+        if (!habilitadas) {
+            return List.of(tarea.apply(null));
+        }
+        List<CompletableFuture<T>> resultados = nombres.stream()
+                .map(sede -> CompletableFuture.supplyAsync(
+                        () -> ContextoSede.ejecutarEn(sede, () -> tarea.apply(sede)), consultas))
+                .collect(Collectors.toList());
+        try {
+            return resultados.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        if (consultas != null) {
+            consultas.shutdown();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.hospital.citas.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.relational.SchemaManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Una base de datos por sede detrás de un único DataSource que elige según ContextoSede.
+// No se combina con hospital.replicas.habilitadas. El proxy perezoso retrasa la elección
+// hasta la primera sentencia, cuando el hilo ya tiene su sede establecida.
+@Configuration
+@ConditionalOnProperty(name = "hospital.sedes.habilitadas", havingValue = "true")
+public class SedesConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SedesConfig.class);
+
+    private final Map<String, DataSource> fuentes = new LinkedHashMap<>();
+
+    @Bean
+    public SedesRuteoDataSource sedesRuteoDataSource(DataSourceProperties propiedades, SedesProperties sedes,
+                                                     @Value("${spring.datasource.hikari.maximum-pool-size:10}") int conexiones) {
+        // Cada sede tiene su propio pool del tamaño con el que LimiteConcurrenciaFilter dimensiona
+        // sus compartimentos; los pools creados a mano no reciben spring.datasource.hikari.*
+        HikariDataSource predeterminada = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        predeterminada.setMaximumPoolSize(conexiones);
+        fuentes.put(sedes.getPredeterminada(), predeterminada);
+        sedes.getFuentes().forEach((nombre, fuente) -> {
+            if (fuentes.containsKey(nombre)) {
+                return;
+            }
+            HikariDataSource sede = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(fuente.getUrl())
+                    .username(fuente.getUsuario() != null ? fuente.getUsuario() : propiedades.getUsername())
+                    .password(fuente.getClave() != null ? fuente.getClave() : propiedades.getPassword())
+                    .build();
+            sede.setMaximumPoolSize(conexiones);
+            fuentes.put(nombre, sede);
+        });
+        return new SedesRuteoDataSource(fuentes, sedes.getPredeterminada());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(SedesRuteoDataSource sedesRuteoDataSource) {
+        return new LazyConnectionDataSourceProxy(sedesRuteoDataSource);
+    }
+
+    // Hibernate y spring.sql.init solo inicializan la sede predeterminada. Para pruebas locales el
+    // esquema de las demás se crea con el SchemaManager de Hibernate, que toma sus conexiones del
+    // DataSource por sedes y así llega a la base de la sede fijada en ContextoSede
+    @EventListener(ApplicationStartedEvent.class)
+    public void inicializarSedes(ApplicationStartedEvent evento) {
+        SedesProperties sedes = evento.getApplicationContext().getBean(SedesProperties.class);
+        if (!sedes.isInicializarEsquema()) {
+            return;
+        }
+        SchemaManager esquema = evento.getApplicationContext().getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactory.class)
+                .getSchemaManager();
+        ResourceLoader recursos = evento.getApplicationContext();
+        fuentes.forEach((nombre, fuente) -> {
+            if (nombre.equals(sedes.getPredeterminada())) {
+                return;
+            }
+            ContextoSede.ejecutarEn(nombre, () -> {
+                esquema.dropMappedObjects(false);
+                esquema.exportMappedObjects(false);
+                return null;
+            });
+            if (sedes.getDatos() != null && !sedes.getDatos().isBlank()) {
+                Resource datos = recursos.getResource(sedes.getDatos().replace("{sede}", nombre));
+                if (datos.exists()) {
+                    ResourceDatabasePopulator inicializador = new ResourceDatabasePopulator(datos);
+                    inicializador.setSqlScriptEncoding("UTF-8");
+                    inicializador.execute(fuente);
+                }
+            }
+            log.info("Esquema inicializado en la sede {}", nombre);
+        });
+    }
+}
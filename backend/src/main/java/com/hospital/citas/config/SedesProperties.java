@@ -0,0 +1,36 @@
+package com.hospital.citas.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Sedes con base de datos propia. La sede predeterminada usa spring.datasource; las demás
+// se declaran como hospital.sedes.fuentes.<nombre>.url/usuario/clave
+@Data
+@ConfigurationProperties(prefix = "hospital.sedes")
+public class SedesProperties {
+
+    private boolean habilitadas;
+
+    private String predeterminada = "central";
+
+    private Map<String, Fuente> fuentes = new LinkedHashMap<>();
+
+    // Crea en cada sede adicional el esquema de las entidades y carga sus datos iniciales, para
+    // pruebas locales; la sede predeterminada la inicializan Hibernate y spring.sql.init
+    private boolean inicializarEsquema;
+
+    // Script de datos iniciales de cada sede adicional; {sede} se reemplaza por su nombre y
+    // si el script no existe o la propiedad está vacía la sede queda sin datos
+    private String datos = "classpath:sedes/datos-{sede}.sql";
+
+    @Data
+    public static class Fuente {
+
+        private String url;
+        private String usuario;
+        private String clave;
+    }
+}
@@ -0,0 +1,28 @@
+package com.hospital.citas.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+// Envía cada conexión a la base de datos de la sede del hilo actual; sin sede, a la predeterminada
+public class SedesRuteoDataSource extends AbstractRoutingDataSource {
+
+    private final String predeterminada;
+
+    public SedesRuteoDataSource(Map<String, DataSource> fuentes, String predeterminada) {
+        this.predeterminada = predeterminada;
+        setTargetDataSources(new HashMap<>(fuentes));
+        setDefaultTargetDataSource(fuentes.get(predeterminada));
+        // Una sede desconocida es un error, no una lectura silenciosa de la sede predeterminada
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String sede = ContextoSede.getSede();
+        return sede != null ? sede : predeterminada;
+    }
+}
@@ -0,0 +1,64 @@
+package com.hospital.citas.config;
+
+import com.hospital.citas.perfilado.SerializacionRespuestaEvento;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+// Mide la serialización de las respuestas con SerializacionRespuestaEvento: el evento empieza
+// justo antes de que el conversor escriba el cuerpo y termina en afterCompletion, que Spring
+// llama cuando la escritura ya terminó. Sin una grabación activa no se crea nada por petición.
+@ControllerAdvice
+public class SerializacionRespuestaAdvice implements ResponseBodyAdvice<Object>, WebMvcConfigurer {
+
+    private static final String ATRIBUTO = SerializacionRespuestaAdvice.class.getName() + ".evento";
+
+    @Override
+    public boolean supports(MethodParameter tipoRetorno, Class<? extends HttpMessageConverter<?>> conversor) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object cuerpo, MethodParameter tipoRetorno, MediaType tipoContenido,
+                                  Class<? extends HttpMessageConverter<?>> conversor,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servlet) {
+            SerializacionRespuestaEvento evento = new SerializacionRespuestaEvento();
+            if (evento.isEnabled()) {
+                evento.endpoint = tipoRetorno.getContainingClass().getSimpleName() + "."
+                        + tipoRetorno.getExecutable().getName();
+                evento.tipoContenido = tipoContenido.toString();
+                evento.begin();
+                servlet.getServletRequest().setAttribute(ATRIBUTO, evento);
+            }
+        }
+        return cuerpo;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry interceptores) {
+        interceptores.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                        Exception ex) {
+                if (handler instanceof HandlerMethod
+                        && request.getAttribute(ATRIBUTO) instanceof SerializacionRespuestaEvento evento) {
+                    request.removeAttribute(ATRIBUTO);
+                    evento.estado = response.getStatus();
+                    evento.commit();
+                }
+            }
+        }).addPathPatterns("/api/**");
+    }
+}
@@ -1,12 +1,22 @@
 package com.hospital.citas.controller;
 
+import com.hospital.citas.dto.BusquedaCitasDTO;
+import com.hospital.citas.dto.CampoCita;
 import com.hospital.citas.dto.CitaDTO;
+import com.hospital.citas.dto.OperacionMasivaDTO;
+import com.hospital.citas.dto.ResultadoMasivoDTO;
 import com.hospital.citas.service.CitaService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import jakarta.validation.ValidationException;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,7 +27,7 @@ import java.util.List;
 
 @RestController
 @RequestMapping("/api/citas")
-@CrossOrigin
+@CrossOrigin(origins = "${hospital.cors.origenes}", allowCredentials = "true")
 @Tag(name = "Citas", description = "API para gestionar citas médicas")
 public class CitaController {
 
@@ -30,11 +40,31 @@ public class CitaController {
 
     @GetMapping
     @Operation(summary = "Obtener todas las citas")
-    public ResponseEntity<List<CitaDTO>> obtenerTodasLasCitas() {
+    public ResponseEntity<?> obtenerTodasLasCitas(
+            @RequestParam(defaultValue = "false") boolean compacto,
+            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return obtenerCampos(fields, compacto, null, null, null);
+        }
+        if (compacto) {
+            return ResponseEntity.ok(citaService.obtenerAgendaCompacta());
+        }
         List<CitaDTO> citas = citaService.obtenerTodasLasCitas();
         return ResponseEntity.ok(citas);
     }
 
+    @GetMapping("/buscar")
+    @Operation(summary = "Buscar citas por cualquier combinación de paciente, doctor, consultorio, especialidad, piso, rango de fechas y estado")
+    public ResponseEntity<?> buscarCitas(
+            @ParameterObject BusquedaCitasDTO filtro,
+            @ParameterObject @PageableDefault(size = 20, sort = "horarioConsulta") Pageable pageable) {
+        try {
+            return ResponseEntity.ok(citaService.buscarCitas(filtro, pageable));
+        } catch (ValidationException | PropertyReferenceException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Obtener una cita por ID")
     public ResponseEntity<CitaDTO> obtenerCitaPorId(@PathVariable Long id) {
@@ -48,26 +78,50 @@ public class CitaController {
 
     @GetMapping("/fecha/{fecha}")
     @Operation(summary = "Obtener citas por fecha")
-    public ResponseEntity<List<CitaDTO>> obtenerCitasPorFecha(
-            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+    public ResponseEntity<?> obtenerCitasPorFecha(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestParam(defaultValue = "false") boolean compacto,
+            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return obtenerCampos(fields, compacto, fecha, null, null);
+        }
+        if (compacto) {
+            return ResponseEntity.ok(citaService.obtenerAgendaCompactaPorFecha(fecha));
+        }
         List<CitaDTO> citas = citaService.obtenerCitasPorFecha(fecha);
         return ResponseEntity.ok(citas);
     }
 
     @GetMapping("/doctor/{doctorId}/fecha/{fecha}")
     @Operation(summary = "Obtener citas por doctor y fecha")
-    public ResponseEntity<List<CitaDTO>> obtenerCitasPorDoctorYFecha(
+    public ResponseEntity<?> obtenerCitasPorDoctorYFecha(
             @PathVariable Long doctorId,
-            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestParam(defaultValue = "false") boolean compacto,
+            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return obtenerCampos(fields, compacto, fecha, doctorId, null);
+        }
+        if (compacto) {
+            return ResponseEntity.ok(citaService.obtenerAgendaCompactaPorDoctorYFecha(doctorId, fecha));
+        }
         List<CitaDTO> citas = citaService.obtenerCitasPorDoctorYFecha(doctorId, fecha);
         return ResponseEntity.ok(citas);
     }
 
     @GetMapping("/consultorio/{consultorioId}/fecha/{fecha}")
     @Operation(summary = "Obtener citas por consultorio y fecha")
-    public ResponseEntity<List<CitaDTO>> obtenerCitasPorConsultorioYFecha(
+    public ResponseEntity<?> obtenerCitasPorConsultorioYFecha(
             @PathVariable Long consultorioId,
-            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestParam(defaultValue = "false") boolean compacto,
+            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return obtenerCampos(fields, compacto, fecha, null, consultorioId);
+        }
+        if (compacto) {
+            return ResponseEntity.ok(citaService.obtenerAgendaCompactaPorConsultorioYFecha(consultorioId, fecha));
+        }
         List<CitaDTO> citas = citaService.obtenerCitasPorConsultorioYFecha(consultorioId, fecha);
         return ResponseEntity.ok(citas);
     }
@@ -93,6 +147,8 @@ public class CitaController {
             return ResponseEntity.ok(citaActualizada);
         } catch (ValidationException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("La cita fue modificada por otra operación, vuelva a cargarla");
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
         }
@@ -100,9 +156,9 @@ public class CitaController {
 
     @PatchMapping("/{id}/cancelar")
     @Operation(summary = "Cancelar una cita")
-    public ResponseEntity<?> cancelarCita(@PathVariable Long id) {
+    public ResponseEntity<?> cancelarCita(@PathVariable Long id, @RequestParam(required = false) Long version) {
         try {
-            boolean resultado = citaService.cancelarCita(id);
+            boolean resultado = citaService.cancelarCita(id, version);
             if (resultado) {
                 return ResponseEntity.ok().body("Cita cancelada exitosamente");
             } else {
@@ -110,8 +166,57 @@ public class CitaController {
             }
         } catch (ValidationException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("La cita fue modificada por otra operación, vuelva a cargarla");
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/masivo/cancelar")
+    @Operation(summary = "Cancelar todas las citas de un doctor o consultorio en un rango de fechas")
+    public ResponseEntity<?> cancelarCitasMasivo(@Valid @RequestBody OperacionMasivaDTO operacion) {
+        try {
+            ResultadoMasivoDTO resultado = citaService.cancelarCitasMasivo(operacion);
+            return ResponseEntity.ok(resultado);
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Las citas cambiaron durante la operación, vuelva a intentarlo");
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/masivo/reasignar")
+    @Operation(summary = "Mover las citas de un doctor o consultorio a otro en un rango de fechas")
+    public ResponseEntity<?> reasignarCitasMasivo(@Valid @RequestBody OperacionMasivaDTO operacion) {
+        try {
+            ResultadoMasivoDTO resultado = citaService.reasignarCitasMasivo(operacion);
+            return ResponseEntity.ok(resultado);
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Las citas cambiaron durante la operación, vuelva a intentarlo");
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
         }
     }
-} 
\ No newline at end of file
+
+    // Con fields=id,horarioConsulta,... la consulta selecciona solo esas columnas y une
+    // únicamente las tablas que las contienen. No se combina con compacto, que tiene su propia forma
+    private ResponseEntity<?> obtenerCampos(String fields, boolean compacto, LocalDate fecha, Long doctorId,
+                                            Long consultorioId) {
+        if (compacto) {
+            return ResponseEntity.badRequest().body("Los parámetros fields y compacto no se pueden combinar");
+        }
+        try {
+            return ResponseEntity.ok(citaService.obtenerCamposDeCitas(
+                    CampoCita.parsear(fields), fecha, doctorId, consultorioId));
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
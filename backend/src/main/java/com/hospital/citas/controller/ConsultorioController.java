@@ -15,7 +15,7 @@ import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/consultorios")
-@CrossOrigin
+@CrossOrigin(origins = "${hospital.cors.origenes}", allowCredentials = "true")
 @Tag(name = "Consultorios", description = "API para gestionar consultorios")
 public class ConsultorioController {
 
@@ -0,0 +1,66 @@
+package com.hospital.citas.controller;
+
+import com.hospital.citas.dto.DisponibilidadDTO;
+import com.hospital.citas.service.DisponibilidadService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.ValidationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/disponibilidad")
+@CrossOrigin(origins = "${hospital.cors.origenes}", allowCredentials = "true")
+@Tag(name = "Disponibilidad", description = "API de capacidad disponible por día para calendarios")
+public class DisponibilidadController {
+
+    private final DisponibilidadService disponibilidadService;
+
+    @Autowired
+    public DisponibilidadController(DisponibilidadService disponibilidadService) {
+        this.disponibilidadService = disponibilidadService;
+    }
+
+    @GetMapping("/doctor/{doctorId}")
+    @Operation(summary = "Obtener la capacidad restante por día de un doctor")
+    public ResponseEntity<?> obtenerDisponibilidadDoctor(
+            @PathVariable Long doctorId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            return ResponseEntity.ok(disponibilidadService.obtenerDisponibilidadDoctor(doctorId, desde, hasta));
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/consultorio/{consultorioId}")
+    @Operation(summary = "Obtener las horas ocupadas por día de un consultorio")
+    public ResponseEntity<?> obtenerDisponibilidadConsultorio(
+            @PathVariable Long consultorioId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            return ResponseEntity.ok(disponibilidadService.obtenerDisponibilidadConsultorio(consultorioId, desde, hasta));
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/especialidad/{especialidad}")
+    @Operation(summary = "Obtener la capacidad restante por día de una especialidad")
+    public ResponseEntity<?> obtenerDisponibilidadEspecialidad(
+            @PathVariable String especialidad,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            return ResponseEntity.ok(disponibilidadService.obtenerDisponibilidadEspecialidad(especialidad, desde, hasta));
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -15,7 +15,7 @@ import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/doctores")
-@CrossOrigin
+@CrossOrigin(origins = "${hospital.cors.origenes}", allowCredentials = "true")
 @Tag(name = "Doctores", description = "API para gestionar doctores")
 public class DoctorController {
 
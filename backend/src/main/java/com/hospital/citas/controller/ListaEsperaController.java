@@ -0,0 +1,59 @@
+package com.hospital.citas.controller;
+
+import com.hospital.citas.dto.ListaEsperaDTO;
+import com.hospital.citas.service.ListaEsperaService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.Valid;
+import jakarta.validation.ValidationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/lista-espera")
+@CrossOrigin(origins = "${hospital.cors.origenes}", allowCredentials = "true")
+@Tag(name = "Lista de espera", description = "API para gestionar la lista de espera de citas")
+public class ListaEsperaController {
+
+    private final ListaEsperaService listaEsperaService;
+
+    @Autowired
+    public ListaEsperaController(ListaEsperaService listaEsperaService) {
+        this.listaEsperaService = listaEsperaService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Obtener los registros activos de la lista de espera")
+    public ResponseEntity<List<ListaEsperaDTO>> obtenerActivos() {
+        return ResponseEntity.ok(listaEsperaService.obtenerActivos());
+    }
+
+    @PostMapping
+    @Operation(summary = "Registrar a un paciente en la lista de espera")
+    public ResponseEntity<?> registrar(@Valid @RequestBody ListaEsperaDTO listaEsperaDTO) {
+        try {
+            ListaEsperaDTO registro = listaEsperaService.registrar(listaEsperaDTO);
+            return ResponseEntity.status(HttpStatus.CREATED).body(registro);
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Retirar un registro de la lista de espera")
+    public ResponseEntity<Void> cancelarRegistro(@PathVariable Long id) {
+        try {
+            listaEsperaService.cancelarRegistro(id);
+            return ResponseEntity.noContent().build();
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
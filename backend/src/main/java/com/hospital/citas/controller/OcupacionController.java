@@ -0,0 +1,75 @@
+package com.hospital.citas.controller;
+
+import com.hospital.citas.dto.OcupacionDTO;
+import com.hospital.citas.service.OcupacionService;
+import com.hospital.citas.service.OcupacionService.Dimension;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+@RestController
+@RequestMapping("/api/ocupacion")
+@CrossOrigin(origins = "${hospital.cors.origenes}", allowCredentials = "true")
+@Tag(name = "Ocupación", description = "API de ocupación y utilización de doctores, consultorios y pisos")
+public class OcupacionController {
+
+    private final OcupacionService ocupacionService;
+
+    @Autowired
+    public OcupacionController(OcupacionService ocupacionService) {
+        this.ocupacionService = ocupacionService;
+    }
+
+    @GetMapping("/doctor/{doctorId}/fecha/{fecha}")
+    @Operation(summary = "Obtener la ocupación diaria o semanal de un doctor")
+    public ResponseEntity<OcupacionDTO> obtenerOcupacionDoctor(
+            @PathVariable Long doctorId,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestParam(defaultValue = "dia") String periodo) {
+        return obtenerOcupacion(Dimension.DOCTOR, doctorId, fecha, periodo);
+    }
+
+    @GetMapping("/consultorio/{consultorioId}/fecha/{fecha}")
+    @Operation(summary = "Obtener la ocupación diaria o semanal de un consultorio")
+    public ResponseEntity<OcupacionDTO> obtenerOcupacionConsultorio(
+            @PathVariable Long consultorioId,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestParam(defaultValue = "dia") String periodo) {
+        return obtenerOcupacion(Dimension.CONSULTORIO, consultorioId, fecha, periodo);
+    }
+
+    @GetMapping("/piso/{piso}/fecha/{fecha}")
+    @Operation(summary = "Obtener la ocupación diaria o semanal de un piso")
+    public ResponseEntity<OcupacionDTO> obtenerOcupacionPiso(
+            @PathVariable Long piso,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestParam(defaultValue = "dia") String periodo) {
+        return obtenerOcupacion(Dimension.PISO, piso, fecha, periodo);
+    }
+
+    @PostMapping("/recalcular")
+    @Operation(summary = "Recalcular la ocupación a partir de la base de datos")
+    public ResponseEntity<Void> recalcular() {
+        ocupacionService.recalcular();
+        return ResponseEntity.noContent().build();
+    }
+
+    // El periodo semanal va de lunes a domingo de la semana que contiene la fecha
+    private ResponseEntity<OcupacionDTO> obtenerOcupacion(Dimension dimension, Long id, LocalDate fecha, String periodo) {
+        if ("semana".equalsIgnoreCase(periodo)) {
+            LocalDate lunes = fecha.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            return ResponseEntity.ok(ocupacionService.obtenerOcupacion(dimension, id, lunes, lunes.plusDays(6)));
+        }
+        if ("dia".equalsIgnoreCase(periodo)) {
+            return ResponseEntity.ok(ocupacionService.obtenerOcupacion(dimension, id, fecha, fecha));
+        }
+        return ResponseEntity.badRequest().build();
+    }
+}
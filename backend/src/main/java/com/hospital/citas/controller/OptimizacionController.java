@@ -0,0 +1,55 @@
+package com.hospital.citas.controller;
+
+import com.hospital.citas.service.OptimizacionConsultoriosService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.ValidationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/optimizacion")
+@CrossOrigin(origins = "${hospital.cors.origenes}", allowCredentials = "true")
+@Tag(name = "Optimización", description = "API para reasignar consultorios reduciendo los cambios de consultorio y piso de los doctores")
+public class OptimizacionController {
+
+    private final OptimizacionConsultoriosService optimizacionService;
+
+    @Autowired
+    public OptimizacionController(OptimizacionConsultoriosService optimizacionService) {
+        this.optimizacionService = optimizacionService;
+    }
+
+    @GetMapping("/consultorios")
+    @Operation(summary = "Proponer una reasignación de consultorios para un rango de fechas")
+    public ResponseEntity<?> proponer(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            return ResponseEntity.ok(optimizacionService.proponer(desde, hasta));
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/consultorios")
+    @Operation(summary = "Calcular y aplicar una reasignación de consultorios para un rango de fechas")
+    public ResponseEntity<?> aplicar(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            return ResponseEntity.ok(optimizacionService.aplicar(desde, hasta));
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Las citas cambiaron durante la optimización, vuelva a intentarlo");
+        }
+    }
+}
@@ -5,8 +5,11 @@ import com.hospital.citas.model.Paciente;
 import com.hospital.citas.service.PacienteService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
+import jakarta.validation.ValidationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,7 +19,7 @@ import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/pacientes")
-@CrossOrigin
+@CrossOrigin(origins = "${hospital.cors.origenes}", allowCredentials = "true")
 @Tag(name = "Pacientes", description = "API para gestionar pacientes")
 public class PacienteController {
 
@@ -42,21 +45,32 @@ public class PacienteController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // La CURP es única: un duplicado, incluso entre dos altas simultáneas, se responde con 409
     @PostMapping
     @Operation(summary = "Crear un nuevo paciente")
-    public ResponseEntity<Paciente> crear(@Valid @RequestBody PacienteDTO pacienteDTO) {
-        Paciente nuevoPaciente = pacienteService.guardarPaciente(pacienteDTO);
-        return ResponseEntity.status(HttpStatus.CREATED).body(nuevoPaciente);
+    public ResponseEntity<?> crear(@Valid @RequestBody PacienteDTO pacienteDTO) {
+        try {
+            Paciente nuevoPaciente = pacienteService.guardarPaciente(pacienteDTO);
+            return ResponseEntity.status(HttpStatus.CREATED).body(nuevoPaciente);
+        } catch (ValidationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Ya existe un paciente con la CURP " + pacienteDTO.getCurp());
+        }
     }
 
     @PutMapping("/{id}")
     @Operation(summary = "Actualizar un paciente existente")
-    public ResponseEntity<Paciente> actualizar(@PathVariable Long id, @Valid @RequestBody PacienteDTO pacienteDTO) {
+    public ResponseEntity<?> actualizar(@PathVariable Long id, @Valid @RequestBody PacienteDTO pacienteDTO) {
         try {
             Paciente pacienteActualizado = pacienteService.actualizarPaciente(id, pacienteDTO);
             return ResponseEntity.ok(pacienteActualizado);
-        } catch (Exception e) {
+        } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
+        } catch (ValidationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Ya existe un paciente con la CURP " + pacienteDTO.getCurp());
         }
     }
 
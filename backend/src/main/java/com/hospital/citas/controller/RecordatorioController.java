@@ -0,0 +1,45 @@
+package com.hospital.citas.controller;
+
+import com.hospital.citas.dto.ResultadoRecordatoriosDTO;
+import com.hospital.citas.service.RecordatorioService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/recordatorios")
+@CrossOrigin(origins = "${hospital.cors.origenes}", allowCredentials = "true")
+@Tag(name = "Recordatorios", description = "API para el envío de recordatorios de citas")
+public class RecordatorioController {
+
+    private final RecordatorioService recordatorioService;
+
+    @Autowired
+    public RecordatorioController(RecordatorioService recordatorioService) {
+        this.recordatorioService = recordatorioService;
+    }
+
+    @PostMapping("/fecha/{fecha}")
+    @Operation(summary = "Enviar los recordatorios pendientes de las citas de una fecha")
+    public ResponseEntity<?> enviarRecordatorios(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        try {
+            return ResponseEntity.ok(recordatorioService.enviarRecordatorios(fecha));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/fecha/{fecha}")
+    @Operation(summary = "Obtener cuántos recordatorios de una fecha se enviaron o fallaron")
+    public ResponseEntity<ResultadoRecordatoriosDTO> obtenerEstado(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        return ResponseEntity.ok(recordatorioService.obtenerEstado(fecha));
+    }
+}
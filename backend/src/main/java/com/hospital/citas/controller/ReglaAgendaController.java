@@ -0,0 +1,79 @@
+package com.hospital.citas.controller;
+
+import com.hospital.citas.model.ReglaAgenda;
+import com.hospital.citas.service.ReglasAgendaService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.ValidationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/reglas")
+@CrossOrigin(origins = "${hospital.cors.origenes}", allowCredentials = "true")
+@Tag(name = "Reglas de agenda", description = "API para configurar las reglas que se validan al agendar citas")
+public class ReglaAgendaController {
+
+    private final ReglasAgendaService reglasAgendaService;
+
+    @Autowired
+    public ReglaAgendaController(ReglasAgendaService reglasAgendaService) {
+        this.reglasAgendaService = reglasAgendaService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Obtener todas las reglas de agenda")
+    public ResponseEntity<List<ReglaAgenda>> obtenerTodas() {
+        return ResponseEntity.ok(reglasAgendaService.obtenerReglas());
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Obtener una regla de agenda por ID")
+    public ResponseEntity<ReglaAgenda> obtenerPorId(@PathVariable Long id) {
+        Optional<ReglaAgenda> regla = reglasAgendaService.obtenerReglaPorId(id);
+        return regla.map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping
+    @Operation(summary = "Crear una nueva regla de agenda")
+    public ResponseEntity<?> crear(@Valid @RequestBody ReglaAgenda regla) {
+        try {
+            regla.setId(null);
+            ReglaAgenda nuevaRegla = reglasAgendaService.guardarRegla(regla);
+            return ResponseEntity.status(HttpStatus.CREATED).body(nuevaRegla);
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PutMapping("/{id}")
+    @Operation(summary = "Actualizar una regla de agenda existente")
+    public ResponseEntity<?> actualizar(@PathVariable Long id, @Valid @RequestBody ReglaAgenda regla) {
+        if (reglasAgendaService.obtenerReglaPorId(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            regla.setId(id);
+            return ResponseEntity.ok(reglasAgendaService.guardarRegla(regla));
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Eliminar una regla de agenda")
+    public ResponseEntity<Void> eliminar(@PathVariable Long id) {
+        if (reglasAgendaService.obtenerReglaPorId(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        reglasAgendaService.eliminarRegla(id);
+        return ResponseEntity.noContent().build();
+    }
+}
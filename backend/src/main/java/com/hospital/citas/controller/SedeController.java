@@ -0,0 +1,40 @@
+package com.hospital.citas.controller;
+
+import com.hospital.citas.config.Sedes;
+import com.hospital.citas.dto.CitaDTO;
+import com.hospital.citas.service.HistorialPacienteService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/sedes")
+@CrossOrigin(origins = "${hospital.cors.origenes}", allowCredentials = "true")
+@Tag(name = "Sedes", description = "API de consultas que abarcan todas las sedes")
+public class SedeController {
+
+    private final HistorialPacienteService historialPacienteService;
+    private final Sedes sedes;
+
+    @Autowired
+    public SedeController(HistorialPacienteService historialPacienteService, Sedes sedes) {
+        this.historialPacienteService = historialPacienteService;
+        this.sedes = sedes;
+    }
+
+    @GetMapping
+    @Operation(summary = "Obtener las sedes configuradas")
+    public ResponseEntity<List<String>> obtenerSedes() {
+        return ResponseEntity.ok(sedes.isHabilitadas() ? sedes.getNombres() : List.of());
+    }
+
+    @GetMapping("/pacientes/{curp}/citas")
+    @Operation(summary = "Obtener el historial de citas de un paciente en todas las sedes")
+    public ResponseEntity<List<CitaDTO>> obtenerHistorialPaciente(@PathVariable String curp) {
+        return ResponseEntity.ok(historialPacienteService.obtenerHistorial(curp));
+    }
+}
@@ -0,0 +1,33 @@
+package com.hospital.citas.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+// Representación compacta de una lista de citas: cada doctor, consultorio y paciente
+// referenciado aparece una sola vez en su diccionario, indexado por id. Es inmutable porque
+// la misma instancia se entrega a todas las peticiones agrupadas por SingleFlight, y los
+// diccionarios llevan resúmenes con los datos de la agenda, no las entidades (sin CURP ni sede).
+// Los clientes lo decodifican con el constructor (nombres de parámetro de -parameters)
+@Value
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
+public class AgendaCompactaDTO {
+
+    List<CitaResumenDTO> citas;
+    Map<Long, DoctorResumen> doctores;
+    Map<Long, ConsultorioResumen> consultorios;
+    Map<Long, PacienteResumen> pacientes;
+
+    public record DoctorResumen(Long id, String nombre, String apellidoPaterno, String apellidoMaterno,
+                                String especialidad) {
+    }
+
+    public record ConsultorioResumen(Long id, Integer numeroConsultorio, Integer piso) {
+    }
+
+    public record PacienteResumen(Long id, String nombre, String apellidos) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.hospital.citas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+// Filtros de la búsqueda de citas; los que se dejan en null no se aplican
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BusquedaCitasDTO {
+
+    private Long pacienteId;
+
+    private Long doctorId;
+
+    private Long consultorioId;
+
+    private String especialidad;
+
+    private Integer piso;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate desde;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate hasta;
+
+    private Boolean activa;
+}
@@ -0,0 +1,59 @@
+package com.hospital.citas.dto;
+
+import jakarta.validation.ValidationException;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Campos de CitaDTO que se pueden pedir con el parámetro fields; cada uno indica la relación
+// que hay que unir para obtenerlo (null si sale de la propia tabla de citas)
+@Getter
+public enum CampoCita {
+
+    ID("id", null, "id"),
+    CONSULTORIO_ID("consultorioId", null, "consultorio.id"),
+    DOCTOR_ID("doctorId", null, "doctor.id"),
+    PACIENTE_ID("pacienteId", null, "paciente.id"),
+    HORARIO_CONSULTA("horarioConsulta", null, "horarioConsulta"),
+    ACTIVA("activa", null, "activa"),
+    VERSION("version", null, "version"),
+    NOMBRE_PACIENTE("nombrePaciente", "paciente", "nombre"),
+    APELLIDOS_PACIENTE("apellidosPaciente", "paciente", "apellidos"),
+    NOMBRE_DOCTOR("nombreDoctor", "doctor", "nombre"),
+    APELLIDO_PATERNO_DOCTOR("apellidoPaternoDoctor", "doctor", "apellidoPaterno"),
+    APELLIDO_MATERNO_DOCTOR("apellidoMaternoDoctor", "doctor", "apellidoMaterno"),
+    ESPECIALIDAD_DOCTOR("especialidadDoctor", "doctor", "especialidad"),
+    NUMERO_CONSULTORIO("numeroConsultorio", "consultorio", "numeroConsultorio"),
+    PISO_CONSULTORIO("pisoConsultorio", "consultorio", "piso");
+
+    private final String nombre;
+    private final String relacion;
+    private final String atributo;
+
+    CampoCita(String nombre, String relacion, String atributo) {
+        this.nombre = nombre;
+        this.relacion = relacion;
+        this.atributo = atributo;
+    }
+
+    // Convierte "id,horarioConsulta,doctorId" en los campos correspondientes, conservando el orden
+    public static Set<CampoCita> parsear(String campos) {
+        Set<CampoCita> resultado = new LinkedHashSet<>();
+        for (String nombre : campos.split(",")) {
+            String limpio = nombre.trim();
+            if (limpio.isEmpty()) {
+                continue;
+            }
+            resultado.add(Arrays.stream(values())
+                    .filter(campo -> campo.nombre.equals(limpio))
+                    .findFirst()
+                    .orElseThrow(() -> new ValidationException("Campo desconocido: " + limpio)));
+        }
+        if (resultado.isEmpty()) {
+            throw new ValidationException("Se debe indicar al menos un campo");
+        }
+        return resultado;
+    }
+}
@@ -30,6 +30,12 @@ public class CitaDTO {
     
     private boolean activa = true;
     
+    // Versión leída por el cliente; si no coincide al actualizar se responde 409
+    private Long version;
+    
+    // Sede donde está la cita; se asigna al crearla según la sede de la petición
+    private String sede;
+    
     // Para respuestas
     private String nombrePaciente;
     private String apellidosPaciente;
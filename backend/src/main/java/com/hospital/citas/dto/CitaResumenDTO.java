@@ -0,0 +1,19 @@
+package com.hospital.citas.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
+public class CitaResumenDTO {
+
+    Long id;
+    Long consultorioId;
+    Long doctorId;
+    Long pacienteId;
+    LocalDateTime horarioConsulta;
+    boolean activa;
+}
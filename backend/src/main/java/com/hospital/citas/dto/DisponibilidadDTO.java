@@ -0,0 +1,20 @@
+package com.hospital.citas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DisponibilidadDTO {
+
+    private String tipo;
+    private String referencia;
+    private LocalDate desde;
+    private LocalDate hasta;
+    private List<DisponibilidadDiaDTO> dias;
+}
@@ -0,0 +1,20 @@
+package com.hospital.citas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DisponibilidadDiaDTO {
+
+    private LocalDate fecha;
+    private int citas;
+    private int capacidad;
+    private int capacidadRestante;
+    // Bit h encendido si hay al menos una cita que inicia a la hora h (0-23)
+    private int horasOcupadas;
+}
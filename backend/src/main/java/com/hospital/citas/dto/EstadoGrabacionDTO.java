@@ -0,0 +1,19 @@
+package com.hospital.citas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadoGrabacionDTO {
+
+    private boolean activa;
+    private Instant inicio;
+    private long duracionMaximaMinutos;
+    private long tamanoMaximoMb;
+    private long tamanoActualBytes;
+}
@@ -0,0 +1,42 @@
+package com.hospital.citas.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListaEsperaDTO {
+
+    private Long id;
+
+    @NotNull(message = "El ID del paciente es obligatorio")
+    private Long pacienteId;
+
+    private Long doctorId;
+
+    private String especialidad;
+
+    @NotNull(message = "La fecha inicial es obligatoria")
+    private LocalDate fechaDesde;
+
+    @NotNull(message = "La fecha final es obligatoria")
+    private LocalDate fechaHasta;
+
+    @NotNull(message = "La hora inicial es obligatoria")
+    private LocalTime horaDesde;
+
+    @NotNull(message = "La hora final es obligatoria")
+    private LocalTime horaHasta;
+
+    // Para respuestas
+    private LocalDateTime fechaRegistro;
+    private boolean activa;
+    private Long citaId;
+}
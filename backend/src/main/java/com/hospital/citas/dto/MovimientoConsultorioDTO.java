@@ -0,0 +1,19 @@
+package com.hospital.citas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovimientoConsultorioDTO {
+
+    private Long citaId;
+    private Long doctorId;
+    private LocalDateTime horarioConsulta;
+    private Long consultorioAnteriorId;
+    private Long consultorioNuevoId;
+}
@@ -0,0 +1,23 @@
+package com.hospital.citas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OcupacionDTO {
+
+    private String dimension;
+    private Long id;
+    private LocalDate desde;
+    private LocalDate hasta;
+    private Map<LocalDate, Integer> citasPorDia;
+    private int totalCitas;
+    private int capacidad;
+    private double utilizacion;
+}
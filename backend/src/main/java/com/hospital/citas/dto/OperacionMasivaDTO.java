@@ -0,0 +1,30 @@
+package com.hospital.citas.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Selección de citas por doctor o consultorio en un rango de fechas; para reasignar
+// se indica además el doctor o consultorio de destino
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperacionMasivaDTO {
+
+    private Long doctorId;
+
+    private Long consultorioId;
+
+    @NotNull(message = "La fecha inicial es obligatoria")
+    private LocalDate desde;
+
+    @NotNull(message = "La fecha final es obligatoria")
+    private LocalDate hasta;
+
+    private Long nuevoDoctorId;
+
+    private Long nuevoConsultorioId;
+}
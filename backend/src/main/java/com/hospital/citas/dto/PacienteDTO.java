@@ -1,6 +1,7 @@
 package com.hospital.citas.dto;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,4 +18,8 @@ public class PacienteDTO {
     
     @NotBlank(message = "Los apellidos son obligatorios")
     private String apellidos;
+    
+    // Opcional; si se envía debe ser una CURP completa (18 caracteres en mayúsculas)
+    @Pattern(regexp = "[A-Z]{4}[0-9]{6}[HMX][A-Z]{5}[0-9A-Z][0-9]", message = "La CURP no tiene un formato válido")
+    private String curp;
 } 
\ No newline at end of file
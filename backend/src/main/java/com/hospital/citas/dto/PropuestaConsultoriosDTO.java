@@ -0,0 +1,27 @@
+package com.hospital.citas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Resultado del optimizador de consultorios: cuántos cambios de consultorio y pisos recorridos
+// tienen los doctores entre citas consecutivas antes y después de aplicar los movimientos
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropuestaConsultoriosDTO {
+
+    private LocalDate desde;
+    private LocalDate hasta;
+    private int cambiosConsultorioAntes;
+    private int cambiosConsultorioDespues;
+    private int pisosRecorridosAntes;
+    private int pisosRecorridosDespues;
+    private List<MovimientoConsultorioDTO> movimientos;
+    // false si la búsqueda se detuvo por el tiempo máximo antes de converger
+    private boolean completa;
+    private boolean aplicada;
+}
@@ -0,0 +1,24 @@
+package com.hospital.citas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Datos que necesita un enviador para avisar al paciente; el id de la cita sirve como clave de idempotencia
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecordatorioDTO {
+
+    private Long citaId;
+    private Long pacienteId;
+    private String nombrePaciente;
+    private String apellidosPaciente;
+    private LocalDateTime horarioConsulta;
+    private String nombreDoctor;
+    private String apellidoPaternoDoctor;
+    private Integer numeroConsultorio;
+    private Integer pisoConsultorio;
+}
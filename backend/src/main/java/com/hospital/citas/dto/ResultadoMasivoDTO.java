@@ -0,0 +1,17 @@
+package com.hospital.citas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoMasivoDTO {
+
+    private int citasAfectadas;
+    // Citas afectadas con los datos del paciente, para poder avisarle
+    private List<CitaDTO> citas;
+}
@@ -0,0 +1,18 @@
+package com.hospital.citas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoRecordatoriosDTO {
+
+    private LocalDate fecha;
+    private long enviados;
+    private long fallidos;
+    private long duracionMs;
+}
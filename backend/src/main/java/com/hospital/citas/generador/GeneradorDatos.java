@@ -0,0 +1,264 @@
+package com.hospital.citas.generador;
+
+import com.hospital.citas.service.ReglasAgendaService;
+import com.hospital.citas.service.reglas.LimitesAgenda;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Genera un volumen configurable de datos sintéticos para pruebas de rendimiento.
+// Se ejecuta con el perfil "generador", que escribe en su propio esquema, y la aplicación
+// termina al finalizar porque el perfil no levanta servidor web ni tareas programadas:
+//   mvn spring-boot:run -Dspring-boot.run.profiles=generador
+// Las citas se reparten entre hoy - dias-pasados y hoy + dias-futuros con la densidad que
+// resulta del total pedido; si no caben con las reglas se generan las que caben. Las citas
+// respetan las reglas de agenda activas: máximo de citas por doctor al día y horario de cada
+// consultorio, además de un paciente a lo sumo una vez por día (y por lo tanto sin citas a
+// menos de 2 horas) y horarios únicos por doctor y por consultorio.
+@Component
+@Profile("generador")
+public class GeneradorDatos implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(GeneradorDatos.class);
+
+    private static final int PRIMERA_HORA = 8;
+    private static final int ULTIMA_HORA = 19;
+    private static final int CONSULTORIOS_POR_PISO = 10;
+
+    private static final String[] NOMBRES = {"Juan", "María", "Roberto", "Ana", "Carlos", "Laura", "Miguel",
+            "Isabel", "José", "Pedro", "Lucía", "Fernando", "Sofía", "Diego", "Valeria", "Andrés"};
+    private static final String[] APELLIDOS = {"García", "López", "Martínez", "Hernández", "Ramírez", "Pérez",
+            "Sánchez", "González", "Rodríguez", "Torres", "Flores", "Gómez", "Ruiz", "Díaz", "Cruz", "Morales"};
+    private static final String[] ESPECIALIDADES = {"Medicina Interna", "Pediatría", "Cardiología",
+            "Dermatología", "Ginecología", "Traumatología", "Oftalmología", "Neurología"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReglasAgendaService reglasAgendaService;
+
+    @Value("${hospital.generador.doctores:500}")
+    private int doctores;
+    @Value("${hospital.generador.consultorios:200}")
+    private int consultorios;
+    @Value("${hospital.generador.pacientes:1000000}")
+    private int pacientes;
+    @Value("${hospital.generador.citas:4000000}")
+    private long citas;
+    @Value("${hospital.generador.dias-pasados:3650}")
+    private int diasPasados;
+    @Value("${hospital.generador.dias-futuros:90}")
+    private int diasFuturos;
+    @Value("${hospital.generador.lote:5000}")
+    private int lote;
+    @Value("${hospital.generador.semilla:42}")
+    private long semilla;
+
+    @Autowired
+    public GeneradorDatos(JdbcTemplate jdbcTemplate, ReglasAgendaService reglasAgendaService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reglasAgendaService = reglasAgendaService;
+    }
+
+    @Override
+    public void run(String... args) {
+        Random random = new Random(semilla);
+        long inicio = System.currentTimeMillis();
+
+        generarDoctores(random);
+        generarConsultorios();
+        generarPacientes(random);
+        long generadas = generarCitas(random);
+
+        log.info("Generación terminada: {} citas en {} s", generadas, (System.currentTimeMillis() - inicio) / 1000);
+    }
+
+    private void generarDoctores(Random random) {
+        List<Object[]> filas = new ArrayList<>(lote);
+        for (int i = 0; i < doctores; i++) {
+            filas.add(new Object[]{
+                    elegir(NOMBRES, random), elegir(APELLIDOS, random), elegir(APELLIDOS, random),
+                    ESPECIALIDADES[i % ESPECIALIDADES.length]});
+            filas = insertarSiLleno(filas,
+                    "INSERT INTO doctores (nombre, apellido_paterno, apellido_materno, especialidad) VALUES (?, ?, ?, ?)");
+        }
+        insertar(filas, "INSERT INTO doctores (nombre, apellido_paterno, apellido_materno, especialidad) VALUES (?, ?, ?, ?)");
+        log.info("Generados {} doctores", doctores);
+    }
+
+    // Numeración a partir de 1000 para no chocar con los consultorios de data.sql
+    private void generarConsultorios() {
+        List<Object[]> filas = new ArrayList<>(lote);
+        for (int i = 0; i < consultorios; i++) {
+            filas.add(new Object[]{1000 + i, 1 + i / CONSULTORIOS_POR_PISO});
+            filas = insertarSiLleno(filas, "INSERT INTO consultorios (numero_consultorio, piso) VALUES (?, ?)");
+        }
+        insertar(filas, "INSERT INTO consultorios (numero_consultorio, piso) VALUES (?, ?)");
+        log.info("Generados {} consultorios", consultorios);
+    }
+
+    private void generarPacientes(Random random) {
+        List<Object[]> filas = new ArrayList<>(lote);
+        for (int i = 0; i < pacientes; i++) {
+            filas.add(new Object[]{elegir(NOMBRES, random), elegir(APELLIDOS, random) + " " + elegir(APELLIDOS, random)});
+            filas = insertarSiLleno(filas, "INSERT INTO pacientes (nombre, apellidos) VALUES (?, ?)");
+        }
+        insertar(filas, "INSERT INTO pacientes (nombre, apellidos) VALUES (?, ?)");
+        log.info("Generados {} pacientes", pacientes);
+    }
+
+    // Recorre los días del periodo llenando horarios por hora con una probabilidad que depende
+    // de la hora y del día de la semana, escalada para repartir el total pedido en el periodo
+    private long generarCitas(Random random) {
+        long[] idsDoctores = ids("SELECT id FROM doctores ORDER BY id");
+        long[] idsConsultorios = ids("SELECT id FROM consultorios ORDER BY id");
+        long[] idsPacientes = ids("SELECT id FROM pacientes ORDER BY id");
+        LimitesAgenda limites = reglasAgendaService.obtenerLimites();
+        int[] maximoDoctor = jdbcTemplate.query("SELECT id, especialidad FROM doctores ORDER BY id",
+                        (fila, numero) -> limites.maximoCitasDoctor(fila.getLong("id"), fila.getString("especialidad")))
+                .stream().mapToInt(Integer::intValue).toArray();
+        String sql = "INSERT INTO citas (activa, consultorio_id, doctor_id, horario_consulta, paciente_id, version) VALUES (?, ?, ?, ?, ?, 0)";
+
+        int[] citasDoctor = new int[idsDoctores.length];
+        int[] ultimaHoraDoctor = new int[idsDoctores.length];
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Object[]> filas = new ArrayList<>(lote);
+        long generadas = 0;
+        int cursorDoctor = 0;
+        int cursorPaciente = 0;
+
+        LocalDate desde = LocalDate.now().minusDays(diasPasados);
+        LocalDate hasta = LocalDate.now().plusDays(diasFuturos);
+        double escala = escala(ChronoUnit.DAYS.between(desde, hasta) + 1, idsConsultorios.length);
+
+        for (LocalDate fecha = desde; !fecha.isAfter(hasta) && generadas < citas; fecha = fecha.plusDays(1)) {
+            Arrays.fill(citasDoctor, 0);
+            Arrays.fill(ultimaHoraDoctor, -1);
+            int citasDia = 0;
+            double pesoDia = pesoDia(fecha.getDayOfWeek());
+
+            for (int hora = PRIMERA_HORA; hora <= ULTIMA_HORA && generadas < citas; hora++) {
+                double probabilidad = escala * pesoDia * pesoHora(hora);
+                LocalDateTime horario = fecha.atTime(hora, 0);
+
+                for (int c = 0; c < idsConsultorios.length && generadas < citas; c++) {
+                    // Un paciente a lo sumo una vez por día
+                    if (citasDia >= idsPacientes.length) {
+                        break;
+                    }
+                    if (!limites.atiende(idsConsultorios[c], horario.toLocalTime())) {
+                        continue;
+                    }
+                    if (random.nextDouble() >= probabilidad) {
+                        continue;
+                    }
+                    int doctor = siguienteDoctor(cursorDoctor, citasDoctor, maximoDoctor, ultimaHoraDoctor, hora);
+                    if (doctor < 0) {
+                        break;
+                    }
+                    cursorDoctor = (doctor + 1) % idsDoctores.length;
+                    citasDoctor[doctor]++;
+                    ultimaHoraDoctor[doctor] = hora;
+
+                    boolean activa = horario.isAfter(ahora) ? random.nextDouble() >= 0.05 : random.nextDouble() >= 0.1;
+                    filas.add(new Object[]{activa, idsConsultorios[c], idsDoctores[doctor],
+                            Timestamp.valueOf(horario), idsPacientes[cursorPaciente]});
+                    cursorPaciente = (cursorPaciente + 1) % idsPacientes.length;
+                    citasDia++;
+                    generadas++;
+
+                    filas = insertarSiLleno(filas, sql);
+                    if (generadas % 1_000_000 == 0) {
+                        log.info("Generadas {} citas (día {})", generadas, fecha);
+                    }
+                }
+            }
+        }
+        insertar(filas, sql);
+        return generadas;
+    }
+
+    // Fracción de los horarios de consultorio que hay que ocupar para repartir el total en el
+    // periodo. Con la escala completa se ocupan unas 1.350 citas al día por cada 200 consultorios;
+    // si el total no cabe se limita a 1 y se avisa, en lugar de seguir generando años de citas
+    private double escala(long dias, int totalConsultorios) {
+        double horasSemana = 0;
+        for (DayOfWeek dia : DayOfWeek.values()) {
+            for (int hora = PRIMERA_HORA; hora <= ULTIMA_HORA; hora++) {
+                horasSemana += pesoDia(dia) * pesoHora(hora);
+            }
+        }
+        double capacidad = horasSemana / 7 * totalConsultorios * dias;
+        if (citas > capacidad) {
+            log.warn("{} citas no caben en {} días con {} consultorios; se generarán unas {}",
+                    citas, dias, totalConsultorios, (long) capacidad);
+            return 1.0;
+        }
+        log.info("Generando {} citas en {} días (unas {} al día)", citas, dias, citas / dias);
+        return citas / capacidad;
+    }
+
+    // Siguiente doctor en turno rotativo que no tenga cita en esta hora ni haya llegado al máximo del día
+    private int siguienteDoctor(int cursor, int[] citasDoctor, int[] maximoDoctor, int[] ultimaHoraDoctor, int hora) {
+        for (int i = 0; i < citasDoctor.length; i++) {
+            int doctor = (cursor + i) % citasDoctor.length;
+            if (citasDoctor[doctor] < maximoDoctor[doctor] && ultimaHoraDoctor[doctor] != hora) {
+                return doctor;
+            }
+        }
+        return -1;
+    }
+
+    private static double pesoDia(DayOfWeek dia) {
+        if (dia == DayOfWeek.SUNDAY) {
+            return 0.1;
+        }
+        return dia == DayOfWeek.SATURDAY ? 0.4 : 1.0;
+    }
+
+    // Más demanda por la mañana, baja a la hora de comida y repunte por la tarde
+    private static double pesoHora(int hora) {
+        if (hora < 12) {
+            return 0.9;
+        }
+        if (hora < 15) {
+            return 0.5;
+        }
+        return 0.7;
+    }
+
+    private List<Object[]> insertarSiLleno(List<Object[]> filas, String sql) {
+        if (filas.size() < lote) {
+            return filas;
+        }
+        insertar(filas, sql);
+        return new ArrayList<>(lote);
+    }
+
+    private void insertar(List<Object[]> filas, String sql) {
+        if (!filas.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, filas);
+        }
+    }
+
+    private long[] ids(String sql) {
+        return jdbcTemplate.queryForList(sql, Long.class).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static String elegir(String[] valores, Random random) {
+        return valores[random.nextInt(valores.length)];
+    }
+}
@@ -10,8 +10,11 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "citas", uniqueConstraints = {
-    @UniqueConstraint(name = "UK_doctor_horario", columnNames = {"doctor_id", "horario_consulta"}),
-    @UniqueConstraint(name = "UK_consultorio_horario", columnNames = {"consultorio_id", "horario_consulta"})
+    @UniqueConstraint(name = "UK_doctor_horario", columnNames = {"doctor_id", "horario_consulta", "ocupada"}),
+    @UniqueConstraint(name = "UK_consultorio_horario", columnNames = {"consultorio_id", "horario_consulta", "ocupada"})
+}, indexes = {
+    @Index(name = "IDX_cita_paciente_horario", columnList = "paciente_id, horario_consulta"),
+    @Index(name = "IDX_cita_horario_activa", columnList = "horario_consulta, activa")
 })
 @Data
 @NoArgsConstructor
@@ -42,4 +45,19 @@ public class Cita {
     private LocalDateTime horarioConsulta;
 
     private boolean activa = true;
+
+    // Columna calculada por la BD: 1 en las citas activas y NULL en las canceladas. Forma parte de
+    // las restricciones de unicidad y, como los NULL no chocan entre sí, estas solo aplican a las
+    // citas activas; una cita cancelada deja libre su horario de doctor y de consultorio.
+    @Column(name = "ocupada", insertable = false, updatable = false,
+            columnDefinition = "TINYINT GENERATED ALWAYS AS (CASE WHEN activa THEN 1 END)")
+    private Integer ocupada;
+
+    // Sede (hospital) a la que pertenece el registro
+    @Column(length = 30)
+    private String sede;
+
+    // Control de concurrencia optimista: detecta modificaciones simultáneas de la misma cita
+    @Version
+    private Long version;
 } 
\ No newline at end of file
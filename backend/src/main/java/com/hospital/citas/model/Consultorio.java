@@ -8,7 +8,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "consultorios")
+@Table(name = "consultorios", indexes = {
+    @Index(name = "IDX_consultorio_piso", columnList = "piso")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,4 +27,8 @@ public class Consultorio {
     @NotNull(message = "El piso es obligatorio")
     @Min(value = 1, message = "El piso debe ser mayor a 0")
     private Integer piso;
+
+    // Sede (hospital) a la que pertenece el registro
+    @Column(length = 30)
+    private String sede;
 } 
\ No newline at end of file
@@ -7,7 +7,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "doctores")
+@Table(name = "doctores", indexes = {
+    @Index(name = "IDX_doctor_especialidad", columnList = "especialidad")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,4 +32,8 @@ public class Doctor {
 
     @NotBlank(message = "La especialidad es obligatoria")
     private String especialidad;
+
+    // Sede (hospital) a la que pertenece el registro
+    @Column(length = 30)
+    private String sede;
 } 
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.hospital.citas.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Registro del outbox: se escribe en la misma transacción que la modificación que describe
+@Entity
+@Table(name = "outbox_cambios", indexes = {
+    @Index(name = "IDX_outbox_creado", columnList = "creado_en")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoCambio {
+
+    public enum Entidad { CITA, DOCTOR, CONSULTORIO, PACIENTE, REGLA }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Entidad entidad;
+
+    @Column(name = "entidad_id")
+    private Long entidadId;
+
+    // Día de agenda afectado, solo para citas
+    private LocalDate fecha;
+
+    @Column(nullable = false, length = 36)
+    private String nodo;
+
+    @Column(name = "creado_en", nullable = false)
+    private LocalDateTime creadoEn;
+}
@@ -0,0 +1,64 @@
+package com.hospital.citas.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+@Entity
+@Table(name = "lista_espera", indexes = {
+    @Index(name = "IDX_espera_doctor", columnList = "activa, doctor_id, fecha_desde, fecha_registro"),
+    @Index(name = "IDX_espera_especialidad", columnList = "activa, especialidad, fecha_desde, fecha_registro")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListaEspera {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "paciente_id", nullable = false)
+    @NotNull(message = "El paciente es obligatorio")
+    private Paciente paciente;
+
+    // Doctor preferido; si es nulo se acepta cualquier doctor de la especialidad
+    @ManyToOne
+    @JoinColumn(name = "doctor_id")
+    private Doctor doctor;
+
+    private String especialidad;
+
+    @NotNull(message = "La fecha inicial es obligatoria")
+    @Column(name = "fecha_desde")
+    private LocalDate fechaDesde;
+
+    @NotNull(message = "La fecha final es obligatoria")
+    @Column(name = "fecha_hasta")
+    private LocalDate fechaHasta;
+
+    @NotNull(message = "La hora inicial es obligatoria")
+    @Column(name = "hora_desde")
+    private LocalTime horaDesde;
+
+    @NotNull(message = "La hora final es obligatoria")
+    @Column(name = "hora_hasta")
+    private LocalTime horaHasta;
+
+    @Column(name = "fecha_registro", nullable = false)
+    private LocalDateTime fechaRegistro;
+
+    private boolean activa = true;
+
+    // Cita asignada automáticamente al liberarse un horario
+    @ManyToOne
+    @JoinColumn(name = "cita_id")
+    private Cita cita;
+}
@@ -22,4 +22,13 @@ public class Paciente {
 
     @NotBlank(message = "Los apellidos son obligatorios")
     private String apellidos;
+
+    // Identificador de la persona común a todas las sedes, para consultar su historial completo.
+    // Único dentro de cada sede; el formato se valida en PacienteDTO
+    @Column(length = 18, unique = true)
+    private String curp;
+
+    // Sede (hospital) a la que pertenece el registro
+    @Column(length = 30)
+    private String sede;
 } 
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.hospital.citas.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Estado de entrega del recordatorio de una cita; permite reanudar el envío sin repetir.
+// La fila se crea en ENVIANDO antes de enviar y la restricción única sobre cita_id hace que
+// solo una instancia reclame cada cita
+@Entity
+@Table(name = "recordatorios")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Recordatorio {
+
+    public enum Estado { ENVIANDO, ENVIADO, FALLIDO }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cita_id", nullable = false, unique = true)
+    private Cita cita;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Estado estado;
+
+    private int intentos;
+
+    @Column(name = "actualizado_en", nullable = false)
+    private LocalDateTime actualizadoEn;
+}
@@ -0,0 +1,57 @@
+package com.hospital.citas.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+
+// Regla de agendamiento configurable. Los campos doctorId, especialidad y consultorioId
+// limitan a quién aplica la regla; si son null aplica a todos.
+@Entity
+@Table(name = "reglas_agenda")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReglaAgenda {
+
+    public enum Tipo {
+        // valor: minutos mínimos entre dos citas del mismo paciente en el día
+        SEPARACION_PACIENTE,
+        // valor: citas máximas por día de cada doctor
+        MAXIMO_CITAS_DOCTOR,
+        // valor: citas máximas por día entre todos los doctores de la especialidad
+        MAXIMO_CITAS_ESPECIALIDAD,
+        // horaApertura y horaCierre: horario de atención del consultorio
+        HORARIO_CONSULTORIO
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull(message = "El tipo de regla es obligatorio")
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private Tipo tipo;
+
+    private Integer valor;
+
+    @Column(name = "doctor_id")
+    private Long doctorId;
+
+    private String especialidad;
+
+    @Column(name = "consultorio_id")
+    private Long consultorioId;
+
+    @Column(name = "hora_apertura")
+    private LocalTime horaApertura;
+
+    @Column(name = "hora_cierre")
+    private LocalTime horaCierre;
+
+    private boolean activa = true;
+}
@@ -0,0 +1,64 @@
+package com.hospital.citas.perfilado;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.function.Supplier;
+
+// Duración de una etapa de la creación, reprogramación o cancelación de una cita. Sin una
+// grabación activa el evento está deshabilitado y medir solo cuesta la llamada a la etapa.
+@Name("hospital.citas.Etapa")
+@Label("Etapa de operación de cita")
+@Category({"Hospital", "Citas"})
+@Description("Duración de cada etapa de crearCita, actualizarCita y cancelarCita")
+@StackTrace(false)
+public final class EtapaCitaEvento extends Event {
+
+    public static final String CREAR = "crear";
+    public static final String ACTUALIZAR = "actualizar";
+    public static final String CANCELAR = "cancelar";
+
+    @Label("Operación")
+    String operacion;
+
+    @Label("Etapa")
+    String etapa;
+
+    @Label("Sede")
+    String sede;
+
+    @Label("Exitosa")
+    @Description("Falso si la etapa terminó con una excepción, por ejemplo una regla de agenda incumplida")
+    boolean exitosa;
+
+    // Las etapas que fallan también se registran, con exitosa en falso
+    public static <T> T medir(String operacion, String etapa, String sede, Supplier<T> llamada) {
+        EtapaCitaEvento evento = new EtapaCitaEvento();
+        evento.begin();
+        boolean exitosa = false;
+        try {
+            T resultado = llamada.get();
+            exitosa = true;
+            return resultado;
+        } finally {
+            if (evento.shouldCommit()) {
+                evento.operacion = operacion;
+                evento.etapa = etapa;
+                evento.sede = sede;
+                evento.exitosa = exitosa;
+                evento.commit();
+            }
+        }
+    }
+
+    public static void medir(String operacion, String etapa, String sede, Runnable llamada) {
+        medir(operacion, etapa, sede, () -> {
+            llamada.run();
+            return null;
+        });
+    }
+}
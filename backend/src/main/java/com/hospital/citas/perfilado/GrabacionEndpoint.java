@@ -0,0 +1,73 @@
+package com.hospital.citas.perfilado;
+
+import com.hospital.citas.dto.EstadoGrabacionDTO;
+import com.hospital.citas.service.GrabacionService;
+import jakarta.validation.ValidationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+// Control de las grabaciones JFR en /actuator/grabacionjfr. Va por el puerto de administración
+// (management.server.port), que no se publica junto con la API, y sin CORS: una grabación
+// expone detalles internos de la JVM y solo deben pedirla los operadores.
+@Component
+@WebEndpoint(id = "grabacionjfr")
+public class GrabacionEndpoint {
+
+    private static final String VOLCADO = "volcado";
+
+    private final GrabacionService grabacionService;
+
+    @Autowired
+    public GrabacionEndpoint(GrabacionService grabacionService) {
+        this.grabacionService = grabacionService;
+    }
+
+    @ReadOperation
+    public EstadoGrabacionDTO obtenerEstado() {
+        return grabacionService.obtenerEstado();
+    }
+
+    // Sin parámetros se usan los máximos configurados en hospital.perfilado.*
+    @WriteOperation
+    public WebEndpointResponse<Object> iniciar(@Nullable Long duracionMinutos, @Nullable Long tamanoMb) {
+        try {
+            return new WebEndpointResponse<>(grabacionService.iniciar(duracionMinutos, tamanoMb));
+        } catch (ValidationException e) {
+            return new WebEndpointResponse<>(e.getMessage(), WebEndpointResponse.STATUS_BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new WebEndpointResponse<>(e.getMessage(), 409);
+        }
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Object> detener() {
+        try {
+            return new WebEndpointResponse<>(grabacionService.detener());
+        } catch (IllegalStateException e) {
+            return new WebEndpointResponse<>(e.getMessage(), 409);
+        }
+    }
+
+    // GET /actuator/grabacionjfr/volcado devuelve lo grabado hasta ahora como archivo .jfr, que se
+    // abre con JDK Mission Control o con `jfr print`
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> volcar(@Selector String recurso) {
+        if (!VOLCADO.equals(recurso)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        try {
+            return new WebEndpointResponse<>(new InputStreamResource(grabacionService.volcar()));
+        } catch (IllegalStateException e) {
+            return new WebEndpointResponse<>(409);
+        }
+    }
+}
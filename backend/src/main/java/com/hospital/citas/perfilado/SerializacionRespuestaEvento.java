@@ -0,0 +1,27 @@
+package com.hospital.citas.perfilado;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Escritura del cuerpo de una respuesta de la API, desde que el conversor recibe el objeto
+// hasta que termina la petición (ver SerializacionRespuestaAdvice)
+@Name("hospital.citas.SerializacionRespuesta")
+@Label("Serialización de respuesta")
+@Category({"Hospital", "API"})
+@Description("Tiempo de conversión del cuerpo de la respuesta a JSON, CBOR o Smile")
+@StackTrace(false)
+public final class SerializacionRespuestaEvento extends Event {
+
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("Tipo de contenido")
+    public String tipoContenido;
+
+    @Label("Estado HTTP")
+    public int estado;
+}
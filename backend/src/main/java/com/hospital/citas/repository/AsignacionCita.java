@@ -0,0 +1,17 @@
+package com.hospital.citas.repository;
+
+import java.time.LocalDateTime;
+
+// Proyección con lo necesario para reasignar consultorios sin cargar las entidades relacionadas
+public interface AsignacionCita {
+
+    Long getId();
+
+    Long getDoctorId();
+
+    Long getConsultorioId();
+
+    LocalDateTime getHorarioConsulta();
+
+    Boolean getActiva();
+}
@@ -0,0 +1,19 @@
+package com.hospital.citas.repository;
+
+import java.time.LocalDateTime;
+
+// Proyección de las citas del día que pueden afectar a una nueva cita, para evaluar las reglas de agenda
+public interface CitaDelDia {
+
+    Long getId();
+
+    Long getPacienteId();
+
+    Long getDoctorId();
+
+    String getEspecialidad();
+
+    Long getConsultorioId();
+
+    LocalDateTime getHorarioConsulta();
+}
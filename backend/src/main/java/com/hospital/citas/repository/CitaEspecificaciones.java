@@ -0,0 +1,67 @@
+package com.hospital.citas.repository;
+
+import com.hospital.citas.dto.BusquedaCitasDTO;
+import com.hospital.citas.model.Cita;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Construye la consulta de búsqueda de citas a partir de los filtros presentes; cada combinación
+// se apoya en un índice con la columna filtrada al inicio y horario_consulta a continuación
+public final class CitaEspecificaciones {
+
+    private CitaEspecificaciones() {
+    }
+
+    public static Specification<Cita> desdeFiltro(BusquedaCitasDTO filtro) {
+        List<Specification<Cita>> condiciones = new ArrayList<>();
+        if (filtro.getPacienteId() != null) {
+            condiciones.add(dePaciente(filtro.getPacienteId()));
+        }
+        if (filtro.getDoctorId() != null) {
+            condiciones.add(deDoctor(filtro.getDoctorId()));
+        }
+        if (filtro.getConsultorioId() != null) {
+            condiciones.add(deConsultorio(filtro.getConsultorioId()));
+        }
+        if (filtro.getEspecialidad() != null) {
+            condiciones.add(deEspecialidad(filtro.getEspecialidad()));
+        }
+        if (filtro.getPiso() != null) {
+            condiciones.add(enPiso(filtro.getPiso()));
+        }
+        if (filtro.getDesde() != null) {
+            condiciones.add((cita, consulta, cb) ->
+                    cb.greaterThanOrEqualTo(cita.get("horarioConsulta"), filtro.getDesde().atStartOfDay()));
+        }
+        if (filtro.getHasta() != null) {
+            condiciones.add((cita, consulta, cb) ->
+                    cb.lessThan(cita.get("horarioConsulta"), filtro.getHasta().plusDays(1).atStartOfDay()));
+        }
+        if (filtro.getActiva() != null) {
+            condiciones.add((cita, consulta, cb) -> cb.equal(cita.get("activa"), filtro.getActiva()));
+        }
+        return Specification.allOf(condiciones);
+    }
+
+    public static Specification<Cita> dePaciente(Long pacienteId) {
+        return (cita, consulta, cb) -> cb.equal(cita.get("paciente").get("id"), pacienteId);
+    }
+
+    public static Specification<Cita> deDoctor(Long doctorId) {
+        return (cita, consulta, cb) -> cb.equal(cita.get("doctor").get("id"), doctorId);
+    }
+
+    public static Specification<Cita> deConsultorio(Long consultorioId) {
+        return (cita, consulta, cb) -> cb.equal(cita.get("consultorio").get("id"), consultorioId);
+    }
+
+    public static Specification<Cita> deEspecialidad(String especialidad) {
+        return (cita, consulta, cb) -> cb.equal(cita.get("doctor").get("especialidad"), especialidad);
+    }
+
+    public static Specification<Cita> enPiso(Integer piso) {
+        return (cita, consulta, cb) -> cb.equal(cita.get("consultorio").get("piso"), piso);
+    }
+}
@@ -4,7 +4,14 @@ import com.hospital.citas.model.Cita;
 import com.hospital.citas.model.Consultorio;
 import com.hospital.citas.model.Doctor;
 import com.hospital.citas.model.Paciente;
+import com.hospital.citas.model.Recordatorio;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -12,32 +19,179 @@ import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface CitaRepository extends JpaRepository<Cita, Long> {
+public interface CitaRepository extends JpaRepository<Cita, Long>, JpaSpecificationExecutor<Cita>, CitaRepositoryCampos {
+    
+    // Doctor, consultorio y paciente se cargan en la misma consulta para evitar una consulta por fila
+    @Override
+    @EntityGraph(attributePaths = {"doctor", "consultorio", "paciente"})
+    List<Cita> findAll();
+    
+    @Override
+    @EntityGraph(attributePaths = {"doctor", "consultorio", "paciente"})
+    Optional<Cita> findById(Long id);
+    
+    // Búsqueda paginada; el grafo solo se aplica a la consulta de la página, no a la de conteo
+    @Override
+    @EntityGraph(attributePaths = {"doctor", "consultorio", "paciente"})
+    Page<Cita> findAll(Specification<Cita> spec, Pageable pageable);
     
     // Obtener citas por fecha
-    @Query("SELECT c FROM Cita c WHERE DATE(c.horarioConsulta) = :fecha AND c.activa = true")
+    @EntityGraph(attributePaths = {"doctor", "consultorio", "paciente"})
+    @Query("SELECT c FROM Cita c WHERE CAST(c.horarioConsulta AS LocalDate) = :fecha AND c.activa = true")
     List<Cita> findByFecha(@Param("fecha") LocalDate fecha);
     
     // Obtener citas por doctor y fecha
-    @Query("SELECT c FROM Cita c WHERE c.doctor.id = :doctorId AND DATE(c.horarioConsulta) = :fecha AND c.activa = true")
+    @EntityGraph(attributePaths = {"doctor", "consultorio", "paciente"})
+    @Query("SELECT c FROM Cita c WHERE c.doctor.id = :doctorId AND CAST(c.horarioConsulta AS LocalDate) = :fecha AND c.activa = true")
     List<Cita> findByDoctorAndFecha(@Param("doctorId") Long doctorId, @Param("fecha") LocalDate fecha);
     
     // Obtener citas por consultorio y fecha
-    @Query("SELECT c FROM Cita c WHERE c.consultorio.id = :consultorioId AND DATE(c.horarioConsulta) = :fecha AND c.activa = true")
+    @EntityGraph(attributePaths = {"doctor", "consultorio", "paciente"})
+    @Query("SELECT c FROM Cita c WHERE c.consultorio.id = :consultorioId AND CAST(c.horarioConsulta AS LocalDate) = :fecha AND c.activa = true")
     List<Cita> findByConsultorioAndFecha(@Param("consultorioId") Long consultorioId, @Param("fecha") LocalDate fecha);
     
     // Contar citas por doctor y fecha
-    @Query("SELECT COUNT(c) FROM Cita c WHERE c.doctor.id = :doctorId AND DATE(c.horarioConsulta) = :fecha AND c.activa = true")
+    @Query("SELECT COUNT(c) FROM Cita c WHERE c.doctor.id = :doctorId AND CAST(c.horarioConsulta AS LocalDate) = :fecha AND c.activa = true")
     int countByDoctorAndFecha(@Param("doctorId") Long doctorId, @Param("fecha") LocalDate fecha);
     
+    // Citas activas del día del paciente, del doctor, del consultorio o de la especialidad,
+    // en una sola consulta para evaluar todas las reglas de agenda (especialidad null la omite)
+    @Query("SELECT c.id AS id, c.paciente.id AS pacienteId, c.doctor.id AS doctorId, " +
+           "c.doctor.especialidad AS especialidad, c.consultorio.id AS consultorioId, c.horarioConsulta AS horarioConsulta " +
+           "FROM Cita c WHERE c.activa = true AND c.horarioConsulta >= :inicio AND c.horarioConsulta < :fin " +
+           "AND (c.paciente.id = :pacienteId OR c.doctor.id = :doctorId OR c.consultorio.id = :consultorioId " +
+           "OR c.doctor.especialidad = :especialidad)")
+    List<CitaDelDia> findInstantaneaDia(@Param("inicio") LocalDateTime inicio,
+                                        @Param("fin") LocalDateTime fin,
+                                        @Param("pacienteId") Long pacienteId,
+                                        @Param("doctorId") Long doctorId,
+                                        @Param("consultorioId") Long consultorioId,
+                                        @Param("especialidad") String especialidad);
+    
     // Buscar citas por paciente y rango de horas
+    @EntityGraph(attributePaths = {"doctor", "consultorio", "paciente"})
     @Query("SELECT c FROM Cita c WHERE c.paciente.id = :pacienteId AND c.horarioConsulta BETWEEN :inicio AND :fin AND c.activa = true")
     List<Cita> findByPacienteAndRangoHorario(@Param("pacienteId") Long pacienteId, 
                                             @Param("inicio") LocalDateTime inicio, 
                                             @Param("fin") LocalDateTime fin);
     
+    // Historial del paciente en la base de la sede actual
+    @EntityGraph(attributePaths = {"doctor", "consultorio", "paciente"})
+    @Query("SELECT c FROM Cita c WHERE c.paciente.curp = :curp ORDER BY c.horarioConsulta DESC")
+    List<Cita> findByCurpPaciente(@Param("curp") String curp);
+    
+    // Cancelación condicional en una sola sentencia: solo afecta a una cita activa y futura y,
+    // si se indica, que siga en la versión que leyó el cliente
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Cita c SET c.activa = false, c.version = COALESCE(c.version, 0) + 1 " +
+           "WHERE c.id = :id AND c.activa = true AND c.horarioConsulta > :ahora " +
+           "AND (:version IS NULL OR c.version = :version)")
+    int cancelarSiActivaYFutura(@Param("id") Long id, @Param("version") Long version,
+                                @Param("ahora") LocalDateTime ahora);
+    
+    // Citas activas y futuras de un doctor o consultorio en un rango, para operaciones masivas
+    @EntityGraph(attributePaths = {"doctor", "consultorio", "paciente"})
+    @Query("SELECT c FROM Cita c WHERE c.activa = true AND c.horarioConsulta >= :inicio AND c.horarioConsulta < :fin " +
+           "AND (:doctorId IS NULL OR c.doctor.id = :doctorId) " +
+           "AND (:consultorioId IS NULL OR c.consultorio.id = :consultorioId) " +
+           "ORDER BY c.horarioConsulta")
+    List<Cita> findActivasEnRango(@Param("inicio") LocalDateTime inicio,
+                                  @Param("fin") LocalDateTime fin,
+                                  @Param("doctorId") Long doctorId,
+                                  @Param("consultorioId") Long consultorioId);
+    
+    // Horarios ya tomados por un doctor o consultorio; las citas canceladas no los ocupan
+    @Query("SELECT c.horarioConsulta FROM Cita c WHERE c.doctor.id = :doctorId AND c.activa = true " +
+           "AND c.horarioConsulta IN :horarios")
+    List<LocalDateTime> findHorariosTomadosPorDoctor(@Param("doctorId") Long doctorId,
+                                                     @Param("horarios") List<LocalDateTime> horarios);
+    
+    @Query("SELECT c.horarioConsulta FROM Cita c WHERE c.consultorio.id = :consultorioId AND c.activa = true " +
+           "AND c.horarioConsulta IN :horarios")
+    List<LocalDateTime> findHorariosTomadosPorConsultorio(@Param("consultorioId") Long consultorioId,
+                                                          @Param("horarios") List<LocalDateTime> horarios);
+    
+    @Query("SELECT CAST(c.horarioConsulta AS LocalDate) AS fecha, COUNT(c) AS total FROM Cita c " +
+           "WHERE c.doctor.id = :doctorId AND c.activa = true AND c.horarioConsulta >= :inicio AND c.horarioConsulta < :fin " +
+           "GROUP BY CAST(c.horarioConsulta AS LocalDate)")
+    List<ConteoDia> contarPorDiaDeDoctor(@Param("doctorId") Long doctorId,
+                                         @Param("inicio") LocalDateTime inicio,
+                                         @Param("fin") LocalDateTime fin);
+    
+    @Query("SELECT CAST(c.horarioConsulta AS LocalDate) AS fecha, COUNT(c) AS total FROM Cita c " +
+           "WHERE c.doctor.especialidad = :especialidad AND c.activa = true " +
+           "AND c.horarioConsulta >= :inicio AND c.horarioConsulta < :fin " +
+           "GROUP BY CAST(c.horarioConsulta AS LocalDate)")
+    List<ConteoDia> contarPorDiaDeEspecialidad(@Param("especialidad") String especialidad,
+                                               @Param("inicio") LocalDateTime inicio,
+                                               @Param("fin") LocalDateTime fin);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Cita c SET c.activa = false, c.version = COALESCE(c.version, 0) + 1 " +
+           "WHERE c.id IN :ids AND c.activa = true")
+    int cancelarPorIds(@Param("ids") List<Long> ids);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Cita c SET c.doctor = :doctor, c.version = COALESCE(c.version, 0) + 1 " +
+           "WHERE c.id IN :ids AND c.activa = true")
+    int reasignarDoctorPorIds(@Param("ids") List<Long> ids, @Param("doctor") Doctor doctor);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Cita c SET c.consultorio = :consultorio, c.version = COALESCE(c.version, 0) + 1 " +
+           "WHERE c.id IN :ids AND c.activa = true")
+    int reasignarConsultorioPorIds(@Param("ids") List<Long> ids, @Param("consultorio") Consultorio consultorio);
+    
+    // Consultorio de cada cita activa de un rango; las canceladas no ocupan su consultorio
+    // en UK_consultorio_horario
+    @Query("SELECT c.id AS id, c.doctor.id AS doctorId, c.consultorio.id AS consultorioId, " +
+           "c.horarioConsulta AS horarioConsulta, c.activa AS activa " +
+           "FROM Cita c WHERE c.activa = true AND c.horarioConsulta >= :inicio AND c.horarioConsulta < :fin")
+    List<AsignacionCita> findAsignacionesEntre(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
+    
+    // Cambio de consultorio de una sola cita, condicionado a que siga donde se leyó y sea activa y futura
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Cita c SET c.consultorio = :consultorio, c.version = COALESCE(c.version, 0) + 1 " +
+           "WHERE c.id = :id AND c.consultorio = :anterior AND c.activa = true AND c.horarioConsulta > :ahora")
+    int moverConsultorio(@Param("id") Long id,
+                         @Param("anterior") Consultorio anterior,
+                         @Param("consultorio") Consultorio consultorio,
+                         @Param("ahora") LocalDateTime ahora);
+    
+    // Página de citas activas de un rango que aún requieren recordatorio, paginada por id (keyset)
+    @EntityGraph(attributePaths = {"doctor", "consultorio", "paciente"})
+    @Query("SELECT c FROM Cita c WHERE c.activa = true AND c.horarioConsulta >= :inicio AND c.horarioConsulta < :fin " +
+           "AND c.id > :ultimoId AND NOT EXISTS (SELECT r FROM Recordatorio r WHERE r.cita = c " +
+           "AND (r.estado = :enviado OR r.intentos >= :maximoIntentos)) " +
+           "ORDER BY c.id")
+    List<Cita> findParaRecordatorio(@Param("inicio") LocalDateTime inicio,
+                                    @Param("fin") LocalDateTime fin,
+                                    @Param("ultimoId") Long ultimoId,
+                                    @Param("enviado") Recordatorio.Estado enviado,
+                                    @Param("maximoIntentos") int maximoIntentos,
+                                    Pageable pageable);
+    
+    // Conteo de citas activas agrupado por doctor, consultorio y día, para recalcular la ocupación
+    @Query("SELECT c.doctor.id AS doctorId, c.consultorio.id AS consultorioId, c.consultorio.piso AS piso, " +
+           "CAST(c.horarioConsulta AS LocalDate) AS fecha, COUNT(c) AS total " +
+           "FROM Cita c WHERE c.activa = true AND c.horarioConsulta >= :inicio AND c.horarioConsulta < :fin " +
+           "GROUP BY c.doctor.id, c.consultorio.id, c.consultorio.piso, CAST(c.horarioConsulta AS LocalDate)")
+    List<ConteoOcupacion> contarOcupacionEntre(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
+    
+    // Horarios ocupados en un rango de fechas, filtrados por doctor, consultorio o especialidad
+    @Query("SELECT c.doctor.id AS doctorId, c.consultorio.id AS consultorioId, c.horarioConsulta AS horarioConsulta " +
+           "FROM Cita c WHERE c.activa = true AND c.horarioConsulta >= :inicio AND c.horarioConsulta < :fin " +
+           "AND (:doctorId IS NULL OR c.doctor.id = :doctorId) " +
+           "AND (:consultorioId IS NULL OR c.consultorio.id = :consultorioId) " +
+           "AND (:especialidad IS NULL OR c.doctor.especialidad = :especialidad)")
+    List<HorarioOcupado> findHorariosOcupados(@Param("inicio") LocalDateTime inicio,
+                                              @Param("fin") LocalDateTime fin,
+                                              @Param("doctorId") Long doctorId,
+                                              @Param("consultorioId") Long consultorioId,
+                                              @Param("especialidad") String especialidad);
+    
     List<Cita> findByDoctor(Doctor doctor);
     
     List<Cita> findByConsultorio(Consultorio consultorio);
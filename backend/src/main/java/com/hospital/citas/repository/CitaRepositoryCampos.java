@@ -0,0 +1,15 @@
+package com.hospital.citas.repository;
+
+import com.hospital.citas.dto.CampoCita;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Consultas de citas que seleccionan solo los campos pedidos por el cliente
+public interface CitaRepositoryCampos {
+
+    // Cualquier filtro puede ser null; con fecha solo se devuelven citas activas, como en findByFecha
+    List<Map<String, Object>> findCampos(Set<CampoCita> campos, LocalDate fecha, Long doctorId, Long consultorioId);
+}
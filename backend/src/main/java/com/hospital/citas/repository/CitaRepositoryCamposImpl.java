@@ -0,0 +1,77 @@
+package com.hospital.citas.repository;
+
+import com.hospital.citas.dto.CampoCita;
+import com.hospital.citas.model.Cita;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class CitaRepositoryCamposImpl implements CitaRepositoryCampos {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findCampos(Set<CampoCita> campos, LocalDate fecha, Long doctorId, Long consultorioId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> consulta = cb.createTupleQuery();
+        Root<Cita> cita = consulta.from(Cita.class);
+
+        // Solo se une doctor, consultorio o paciente si se pidió alguno de sus campos;
+        // los ids salen de las llaves foráneas de citas sin ninguna unión
+        Map<String, From<?, ?>> uniones = new HashMap<>();
+        List<Selection<?>> columnas = new ArrayList<>(campos.size());
+        for (CampoCita campo : campos) {
+            From<?, ?> origen = campo.getRelacion() == null
+                    ? cita
+                    : uniones.computeIfAbsent(campo.getRelacion(), relacion -> cita.join(relacion));
+            Path<?> ruta = origen;
+            for (String parte : campo.getAtributo().split("\\.")) {
+                ruta = ruta.get(parte);
+            }
+            columnas.add(ruta.alias(campo.getNombre()));
+        }
+        consulta.multiselect(columnas);
+
+        List<Predicate> filtros = new ArrayList<>();
+        if (fecha != null) {
+            // Rango en lugar de DATE() para que la consulta pueda usar el índice de horario_consulta
+            filtros.add(cb.isTrue(cita.get("activa")));
+            filtros.add(cb.greaterThanOrEqualTo(cita.get("horarioConsulta"), fecha.atStartOfDay()));
+            filtros.add(cb.lessThan(cita.get("horarioConsulta"), fecha.plusDays(1).atStartOfDay()));
+        }
+        if (doctorId != null) {
+            filtros.add(cb.equal(cita.get("doctor").get("id"), doctorId));
+        }
+        if (consultorioId != null) {
+            filtros.add(cb.equal(cita.get("consultorio").get("id"), consultorioId));
+        }
+        consulta.where(filtros.toArray(new Predicate[0]));
+
+        List<Tuple> filas = entityManager.createQuery(consulta).getResultList();
+        List<Map<String, Object>> resultado = new ArrayList<>(filas.size());
+        for (Tuple fila : filas) {
+            Map<String, Object> valores = new LinkedHashMap<>();
+            for (CampoCita campo : campos) {
+                valores.put(campo.getNombre(), fila.get(campo.getNombre()));
+            }
+            resultado.add(valores);
+        }
+        return resultado;
+    }
+}
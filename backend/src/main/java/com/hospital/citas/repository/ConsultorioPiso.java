@@ -0,0 +1,9 @@
+package com.hospital.citas.repository;
+
+// Proyección para el piso de cada consultorio
+public interface ConsultorioPiso {
+
+    Long getId();
+
+    Integer getPiso();
+}
@@ -2,8 +2,14 @@ package com.hospital.citas.repository;
 
 import com.hospital.citas.model.Consultorio;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+
+import java.util.List;
  
 @Repository
 public interface ConsultorioRepository extends JpaRepository<Consultorio, Long> {
+    
+    @Query("SELECT c.id AS id, c.piso AS piso FROM Consultorio c")
+    List<ConsultorioPiso> findPisos();
 } 
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.hospital.citas.repository;
+
+import java.time.LocalDate;
+
+// Proyección para conteos de citas agrupados por día
+public interface ConteoDia {
+
+    LocalDate getFecha();
+
+    Long getTotal();
+}
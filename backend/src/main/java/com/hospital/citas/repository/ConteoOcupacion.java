@@ -0,0 +1,17 @@
+package com.hospital.citas.repository;
+
+import java.time.LocalDate;
+
+// Proyección para el conteo agrupado de citas activas por doctor, consultorio y día
+public interface ConteoOcupacion {
+
+    Long getDoctorId();
+
+    Long getConsultorioId();
+
+    Integer getPiso();
+
+    LocalDate getFecha();
+
+    Long getTotal();
+}
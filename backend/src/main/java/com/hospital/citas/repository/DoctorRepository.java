@@ -2,8 +2,21 @@ package com.hospital.citas.repository;
 
 import com.hospital.citas.model.Doctor;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
  
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
+    
+    long countByEspecialidad(String especialidad);
+
+    @Query("SELECT d.id FROM Doctor d WHERE d.especialidad = :especialidad")
+    List<Long> findIdsByEspecialidad(@Param("especialidad") String especialidad);
+
+    @Query("SELECT d.especialidad FROM Doctor d WHERE d.id = :id")
+    Optional<String> findEspecialidadById(@Param("id") Long id);
 } 
\ No newline at end of file
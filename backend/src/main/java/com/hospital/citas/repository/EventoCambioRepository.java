@@ -0,0 +1,29 @@
+package com.hospital.citas.repository;
+
+import com.hospital.citas.model.EventoCambio;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EventoCambioRepository extends JpaRepository<EventoCambio, Long> {
+
+    List<EventoCambio> findByIdGreaterThanOrderById(Long id, Pageable pageable);
+
+    // Eventos de ids que se saltaron al leer: transacciones que confirmaron tarde
+    List<EventoCambio> findByIdIn(Collection<Long> ids);
+
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM EventoCambio e")
+    Long findUltimoId();
+
+    @Modifying
+    @Query("DELETE FROM EventoCambio e WHERE e.creadoEn < :limite")
+    int eliminarAnterioresA(@Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,13 @@
+package com.hospital.citas.repository;
+
+import java.time.LocalDateTime;
+
+// Proyección mínima de una cita activa para calcular disponibilidad
+public interface HorarioOcupado {
+
+    Long getDoctorId();
+
+    Long getConsultorioId();
+
+    LocalDateTime getHorarioConsulta();
+}
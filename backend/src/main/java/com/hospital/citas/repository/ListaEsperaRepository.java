@@ -0,0 +1,37 @@
+package com.hospital.citas.repository;
+
+import com.hospital.citas.model.ListaEspera;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+@Repository
+public interface ListaEsperaRepository extends JpaRepository<ListaEspera, Long> {
+
+    @EntityGraph(attributePaths = {"paciente", "doctor"})
+    List<ListaEspera> findByActivaTrueOrderByFechaRegistro();
+
+    // Registros activos que aceptan el horario liberado, en orden de llegada.
+    // Se apoya en los índices IDX_espera_doctor e IDX_espera_especialidad.
+    @EntityGraph(attributePaths = {"paciente", "doctor"})
+    @Query("SELECT l FROM ListaEspera l LEFT JOIN l.doctor d " +
+           "WHERE l.activa = true " +
+           "AND (d.id = :doctorId OR (d IS NULL AND l.especialidad = :especialidad)) " +
+           "AND l.fechaDesde <= :fecha AND l.fechaHasta >= :fecha " +
+           "AND l.horaDesde <= :hora AND l.horaHasta >= :hora " +
+           "AND l.paciente.id <> :pacienteId " +
+           "ORDER BY l.fechaRegistro")
+    List<ListaEspera> findCandidatos(@Param("doctorId") Long doctorId,
+                                     @Param("especialidad") String especialidad,
+                                     @Param("fecha") LocalDate fecha,
+                                     @Param("hora") LocalTime hora,
+                                     @Param("pacienteId") Long pacienteId,
+                                     Pageable pageable);
+}
@@ -3,7 +3,11 @@ package com.hospital.citas.repository;
 import com.hospital.citas.model.Paciente;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
- 
+
 @Repository
 public interface PacienteRepository extends JpaRepository<Paciente, Long> {
+
+    boolean existsByCurp(String curp);
+
+    boolean existsByCurpAndIdNot(String curp, Long id);
 } 
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.hospital.citas.repository;
+
+import com.hospital.citas.model.Recordatorio;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RecordatorioRepository extends JpaRepository<Recordatorio, Long> {
+
+    Optional<Recordatorio> findByCitaId(Long citaId);
+
+    // Vuelve a reclamar un recordatorio fallido con intentos disponibles, o uno que quedó en
+    // ENVIANDO porque la instancia que lo reclamó se detuvo antes de registrar el resultado.
+    // El reclamo suma el intento, para que un envío que nunca termina también agote los intentos
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Recordatorio r SET r.estado = :enviando, r.intentos = r.intentos + 1, r.actualizadoEn = :ahora " +
+           "WHERE r.cita.id = :citaId AND r.intentos < :maximoIntentos " +
+           "AND (r.estado = :fallido OR (r.estado = :enviando AND r.actualizadoEn < :abandonadoAntesDe))")
+    int reclamar(@Param("citaId") Long citaId,
+                 @Param("enviando") Recordatorio.Estado enviando,
+                 @Param("fallido") Recordatorio.Estado fallido,
+                 @Param("maximoIntentos") int maximoIntentos,
+                 @Param("ahora") LocalDateTime ahora,
+                 @Param("abandonadoAntesDe") LocalDateTime abandonadoAntesDe);
+
+    @Query("SELECT COUNT(r) FROM Recordatorio r WHERE r.estado = :estado " +
+           "AND r.cita.horarioConsulta >= :inicio AND r.cita.horarioConsulta < :fin")
+    long contarPorEstado(@Param("estado") Recordatorio.Estado estado,
+                         @Param("inicio") LocalDateTime inicio,
+                         @Param("fin") LocalDateTime fin);
+}
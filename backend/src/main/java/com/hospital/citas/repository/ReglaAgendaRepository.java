@@ -0,0 +1,13 @@
+package com.hospital.citas.repository;
+
+import com.hospital.citas.model.ReglaAgenda;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ReglaAgendaRepository extends JpaRepository<ReglaAgenda, Long> {
+
+    List<ReglaAgenda> findByActivaTrue();
+}
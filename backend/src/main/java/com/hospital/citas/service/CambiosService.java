@@ -0,0 +1,12 @@
+package com.hospital.citas.service;
+
+import com.hospital.citas.model.EventoCambio;
+
+import java.time.LocalDate;
+
+public interface CambiosService {
+
+    void registrarCambio(EventoCambio.Entidad entidad, Long entidadId, LocalDate fecha);
+
+    String getNodo();
+}
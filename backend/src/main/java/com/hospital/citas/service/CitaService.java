@@ -1,9 +1,18 @@
 package com.hospital.citas.service;
 
+import com.hospital.citas.dto.AgendaCompactaDTO;
+import com.hospital.citas.dto.BusquedaCitasDTO;
+import com.hospital.citas.dto.CampoCita;
 import com.hospital.citas.dto.CitaDTO;
+import com.hospital.citas.dto.OperacionMasivaDTO;
+import com.hospital.citas.dto.PaginaDTO;
+import com.hospital.citas.dto.ResultadoMasivoDTO;
+import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface CitaService {
     
@@ -11,7 +20,11 @@ public interface CitaService {
     
     CitaDTO actualizarCita(Long id, CitaDTO citaDTO);
     
-    boolean cancelarCita(Long id);
+    boolean cancelarCita(Long id, Long version);
+    
+    ResultadoMasivoDTO cancelarCitasMasivo(OperacionMasivaDTO operacion);
+    
+    ResultadoMasivoDTO reasignarCitasMasivo(OperacionMasivaDTO operacion);
     
     CitaDTO obtenerCitaPorId(Long id);
     
@@ -22,4 +35,20 @@ public interface CitaService {
     List<CitaDTO> obtenerCitasPorDoctorYFecha(Long doctorId, LocalDate fecha);
     
     List<CitaDTO> obtenerCitasPorConsultorioYFecha(Long consultorioId, LocalDate fecha);
+    
+    // Citas del paciente en la sede actual, incluidas las canceladas
+    List<CitaDTO> obtenerCitasPorCurpPaciente(String curp);
+    
+    PaginaDTO<CitaDTO> buscarCitas(BusquedaCitasDTO filtro, Pageable pageable);
+    
+    AgendaCompactaDTO obtenerAgendaCompacta();
+    
+    AgendaCompactaDTO obtenerAgendaCompactaPorFecha(LocalDate fecha);
+    
+    AgendaCompactaDTO obtenerAgendaCompactaPorDoctorYFecha(Long doctorId, LocalDate fecha);
+    
+    AgendaCompactaDTO obtenerAgendaCompactaPorConsultorioYFecha(Long consultorioId, LocalDate fecha);
+    
+    // Devuelve solo los campos pedidos; los filtros nulos se ignoran
+    List<Map<String, Object>> obtenerCamposDeCitas(Set<CampoCita> campos, LocalDate fecha, Long doctorId, Long consultorioId);
 } 
\ No newline at end of file
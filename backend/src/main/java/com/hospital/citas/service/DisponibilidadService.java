@@ -0,0 +1,14 @@
+package com.hospital.citas.service;
+
+import com.hospital.citas.dto.DisponibilidadDTO;
+
+import java.time.LocalDate;
+
+public interface DisponibilidadService {
+
+    DisponibilidadDTO obtenerDisponibilidadDoctor(Long doctorId, LocalDate desde, LocalDate hasta);
+
+    DisponibilidadDTO obtenerDisponibilidadConsultorio(Long consultorioId, LocalDate desde, LocalDate hasta);
+
+    DisponibilidadDTO obtenerDisponibilidadEspecialidad(String especialidad, LocalDate desde, LocalDate hasta);
+}
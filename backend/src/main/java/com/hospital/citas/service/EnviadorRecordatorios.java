@@ -0,0 +1,9 @@
+package com.hospital.citas.service;
+
+import com.hospital.citas.dto.RecordatorioDTO;
+
+// Canal de entrega de recordatorios (correo, SMS, etc.). Debe lanzar una excepción si el envío falla.
+public interface EnviadorRecordatorios {
+
+    void enviar(RecordatorioDTO recordatorio);
+}
@@ -0,0 +1,18 @@
+package com.hospital.citas.service;
+
+import com.hospital.citas.dto.EstadoGrabacionDTO;
+
+import java.io.InputStream;
+
+public interface GrabacionService {
+
+    EstadoGrabacionDTO iniciar(Long duracionMaximaMinutos, Long tamanoMaximoMb);
+
+    EstadoGrabacionDTO detener();
+
+    EstadoGrabacionDTO obtenerEstado();
+
+    // Lo grabado hasta ahora, leído directamente de los fragmentos de la grabación; quien lo pide
+    // debe cerrarlo
+    InputStream volcar();
+}
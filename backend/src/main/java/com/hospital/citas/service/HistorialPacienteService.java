@@ -0,0 +1,11 @@
+package com.hospital.citas.service;
+
+import com.hospital.citas.dto.CitaDTO;
+
+import java.util.List;
+
+public interface HistorialPacienteService {
+
+    // Citas del paciente en todas las sedes, de la más reciente a la más antigua
+    List<CitaDTO> obtenerHistorial(String curp);
+}
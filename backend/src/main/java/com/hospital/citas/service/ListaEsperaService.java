@@ -0,0 +1,18 @@
+package com.hospital.citas.service;
+
+import com.hospital.citas.dto.ListaEsperaDTO;
+import com.hospital.citas.model.Cita;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ListaEsperaService {
+
+    ListaEsperaDTO registrar(ListaEsperaDTO listaEsperaDTO);
+
+    List<ListaEsperaDTO> obtenerActivos();
+
+    void cancelarRegistro(Long id);
+
+    Optional<ListaEsperaDTO> asignarHorarioLiberado(Cita citaCancelada);
+}
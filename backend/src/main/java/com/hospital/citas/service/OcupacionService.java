@@ -0,0 +1,24 @@
+package com.hospital.citas.service;
+
+import com.hospital.citas.dto.OcupacionDTO;
+import com.hospital.citas.model.Cita;
+
+import java.time.LocalDate;
+
+public interface OcupacionService {
+
+    enum Dimension { DOCTOR, CONSULTORIO, PISO }
+
+    void registrarCita(Cita cita);
+
+    void retirarCita(Cita cita);
+
+    OcupacionDTO obtenerOcupacion(Dimension dimension, Long id, LocalDate desde, LocalDate hasta);
+
+    void recalcular();
+
+    void recalcularFecha(LocalDate fecha);
+
+    // Un consultorio se creó, cambió de piso o se eliminó en esta instancia
+    void consultoriosModificados();
+}
@@ -0,0 +1,12 @@
+package com.hospital.citas.service;
+
+import com.hospital.citas.dto.PropuestaConsultoriosDTO;
+
+import java.time.LocalDate;
+
+public interface OptimizacionConsultoriosService {
+
+    PropuestaConsultoriosDTO proponer(LocalDate desde, LocalDate hasta);
+
+    PropuestaConsultoriosDTO aplicar(LocalDate desde, LocalDate hasta);
+}
@@ -0,0 +1,10 @@
+package com.hospital.citas.service;
+
+import com.hospital.citas.model.EventoCambio;
+
+// Implementado por los componentes con datos en memoria que deben invalidarse
+// cuando otra instancia modifica la base de datos
+public interface ReceptorCambios {
+
+    void aplicarCambio(EventoCambio evento);
+}
@@ -0,0 +1,12 @@
+package com.hospital.citas.service;
+
+import com.hospital.citas.dto.ResultadoRecordatoriosDTO;
+
+import java.time.LocalDate;
+
+public interface RecordatorioService {
+
+    ResultadoRecordatoriosDTO enviarRecordatorios(LocalDate fecha);
+
+    ResultadoRecordatoriosDTO obtenerEstado(LocalDate fecha);
+}
@@ -0,0 +1,27 @@
+package com.hospital.citas.service;
+
+import com.hospital.citas.model.ReglaAgenda;
+import com.hospital.citas.service.reglas.LimitesAgenda;
+import com.hospital.citas.service.reglas.SolicitudCita;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ReglasAgendaService {
+
+    // Lanza ValidationException con el primer incumplimiento
+    void validar(SolicitudCita solicitud);
+
+    List<String> evaluar(SolicitudCita solicitud);
+
+    // Límites de las reglas activas de la sede actual, de la misma caché que la evaluación
+    LimitesAgenda obtenerLimites();
+
+    List<ReglaAgenda> obtenerReglas();
+
+    Optional<ReglaAgenda> obtenerReglaPorId(Long id);
+
+    ReglaAgenda guardarRegla(ReglaAgenda regla);
+
+    void eliminarRegla(Long id);
+}
@@ -0,0 +1,173 @@
+package com.hospital.citas.service.impl;
+
+import com.hospital.citas.config.Sedes;
+import com.hospital.citas.model.EventoCambio;
+import com.hospital.citas.repository.EventoCambioRepository;
+import com.hospital.citas.service.CambiosService;
+import com.hospital.citas.service.ReceptorCambios;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Outbox de cambios para mantener coherentes los datos en memoria de varias instancias.
+// Cada modificación deja un evento en la misma transacción y cada instancia consulta
+// periódicamente los eventos de las demás para invalidar sus datos locales. Con varias sedes
+// cada una tiene su propio outbox en su base y se consultan todas, cada una con su sede en el
+// contexto para que los receptores invaliden los datos de esa sede.
+@Service
+public class CambiosServiceImpl implements CambiosService {
+
+    private static final Logger log = LoggerFactory.getLogger(CambiosServiceImpl.class);
+
+    private static final int EVENTOS_POR_CONSULTA = 500;
+
+    // Un salto mayor no es una transacción en curso (por ejemplo, la BD reservó un bloque de ids)
+    private static final int MAXIMO_HUECOS_POR_SALTO = 1000;
+
+    private final EventoCambioRepository eventoCambioRepository;
+    private final ObjectProvider<ReceptorCambios> receptores;
+    private final Duration huecoMaximo;
+    private final Duration retencion;
+    private final Sedes sedes;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodo = UUID.randomUUID().toString();
+
+    // Con ids autoincrementales una transacción puede confirmar después de otra con id mayor.
+    // Los ids saltados al leer quedan como huecos y se vuelven a buscar en cada sondeo hasta que
+    // aparecen o pasa hueco-maximo-ms (transacción revertida). El plazo se mide con el reloj de
+    // esta instancia desde que se vio el hueco, no con creadoEn, que se fija al escribir y no al
+    // confirmar y viene del reloj de otra instancia.
+    private static final class Posicion {
+        Long ultimoId;
+        final Map<Long, LocalDateTime> huecos = new HashMap<>();
+    }
+
+    // Los ids de cada outbox son independientes, así que la posición se guarda por sede
+    private final Map<String, Posicion> posiciones = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CambiosServiceImpl(EventoCambioRepository eventoCambioRepository,
+                              ObjectProvider<ReceptorCambios> receptores,
+                              Sedes sedes,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${hospital.outbox.hueco-maximo-ms:60000}") long huecoMaximoMs,
+                              @Value("${hospital.outbox.retencion-horas:24}") long retencionHoras) {
+        this.eventoCambioRepository = eventoCambioRepository;
+        this.receptores = receptores;
+        this.sedes = sedes;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.huecoMaximo = Duration.ofMillis(huecoMaximoMs);
+        this.retencion = Duration.ofHours(retencionHoras);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarCambio(EventoCambio.Entidad entidad, Long entidadId, LocalDate fecha) {
+        EventoCambio evento = new EventoCambio();
+        evento.setEntidad(entidad);
+        evento.setEntidadId(entidadId);
+        evento.setFecha(fecha);
+        evento.setNodo(nodo);
+        evento.setCreadoEn(LocalDateTime.now());
+        eventoCambioRepository.save(evento);
+    }
+
+    @Override
+    public String getNodo() {
+        return nodo;
+    }
+
+    @Scheduled(fixedDelayString = "${hospital.outbox.intervalo-ms:500}")
+    public void sondearCambios() {
+        sedes.enCadaSede(sede -> sondear(posiciones.computeIfAbsent(claveSede(sede), s -> new Posicion())));
+    }
+
+    private int sondear(Posicion posicion) {
+        synchronized (posicion) {
+            if (posicion.ultimoId == null) {
+                // Los cambios anteriores al arranque ya están reflejados en la carga inicial
+                posicion.ultimoId = eventoCambioRepository.findUltimoId();
+                return 0;
+            }
+
+            LocalDateTime ahora = LocalDateTime.now();
+            int aplicados = 0;
+            if (!posicion.huecos.isEmpty()) {
+                List<EventoCambio> tardios = eventoCambioRepository.findByIdIn(posicion.huecos.keySet());
+                tardios.forEach(evento -> posicion.huecos.remove(evento.getId()));
+                aplicados += aplicar(tardios);
+            }
+
+            List<EventoCambio> nuevos = eventoCambioRepository.findByIdGreaterThanOrderById(
+                    posicion.ultimoId, PageRequest.of(0, EVENTOS_POR_CONSULTA));
+            long esperado = posicion.ultimoId + 1;
+            for (EventoCambio evento : nuevos) {
+                if (evento.getId() - esperado > MAXIMO_HUECOS_POR_SALTO) {
+                    log.warn("Salto de ids en el outbox de {} a {}, no se esperan los intermedios",
+                            esperado, evento.getId());
+                } else {
+                    for (long id = esperado; id < evento.getId(); id++) {
+                        posicion.huecos.put(id, ahora);
+                    }
+                }
+                esperado = evento.getId() + 1;
+            }
+            aplicados += aplicar(nuevos);
+            if (!nuevos.isEmpty()) {
+                posicion.ultimoId = nuevos.get(nuevos.size() - 1).getId();
+            }
+
+            LocalDateTime limite = ahora.minus(huecoMaximo);
+            posicion.huecos.values().removeIf(visto -> visto.isBefore(limite));
+            return aplicados;
+        }
+    }
+
+    // Cada evento se aplica una sola vez: o llega en orden o llena un hueco
+    private int aplicar(List<EventoCambio> eventos) {
+        int aplicados = 0;
+        for (EventoCambio evento : eventos) {
+            if (nodo.equals(evento.getNodo())) {
+                continue;
+            }
+            receptores.orderedStream().forEach(receptor -> receptor.aplicarCambio(evento));
+            aplicados++;
+            log.debug("Cambio {} {} aplicado con {} ms de retraso", evento.getEntidad(), evento.getEntidadId(),
+                    Duration.between(evento.getCreadoEn(), LocalDateTime.now()).toMillis());
+        }
+        return aplicados;
+    }
+
+    // Una transacción por sede, en el hilo que atiende a cada una
+    @Scheduled(cron = "${hospital.outbox.limpieza-cron:0 30 * * * *}")
+    public void eliminarEventosAntiguos() {
+        LocalDateTime limite = LocalDateTime.now().minus(retencion);
+        List<Integer> eliminados = sedes.enCadaSede(sede -> transactionTemplate.execute(
+                estado -> eventoCambioRepository.eliminarAnterioresA(limite)));
+        log.info("Eliminados {} eventos antiguos del outbox",
+                eliminados.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    // ConcurrentHashMap no admite claves null, que es la sede cuando están deshabilitadas
+    private static String claveSede(String sede) {
+        return sede != null ? sede : "";
+    }
+}
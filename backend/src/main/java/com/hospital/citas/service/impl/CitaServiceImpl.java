@@ -1,58 +1,111 @@
 package com.hospital.citas.service.impl;
 
+import com.hospital.citas.config.ContextoRuteo;
+import com.hospital.citas.config.ContextoSede;
+import com.hospital.citas.dto.AgendaCompactaDTO;
+import com.hospital.citas.dto.BusquedaCitasDTO;
+import com.hospital.citas.dto.CampoCita;
 import com.hospital.citas.dto.CitaDTO;
+import com.hospital.citas.dto.CitaResumenDTO;
+import com.hospital.citas.dto.OperacionMasivaDTO;
+import com.hospital.citas.dto.PaginaDTO;
+import com.hospital.citas.dto.ResultadoMasivoDTO;
 import com.hospital.citas.model.Cita;
 import com.hospital.citas.model.Consultorio;
 import com.hospital.citas.model.Doctor;
+import com.hospital.citas.model.EventoCambio;
 import com.hospital.citas.model.Paciente;
+import com.hospital.citas.perfilado.EtapaCitaEvento;
+import com.hospital.citas.repository.CitaEspecificaciones;
 import com.hospital.citas.repository.CitaRepository;
 import com.hospital.citas.repository.ConsultorioRepository;
+import com.hospital.citas.repository.ConteoDia;
 import com.hospital.citas.repository.DoctorRepository;
 import com.hospital.citas.repository.PacienteRepository;
+import com.hospital.citas.service.CambiosService;
 import com.hospital.citas.service.CitaService;
+import com.hospital.citas.service.ListaEsperaService;
+import com.hospital.citas.service.OcupacionService;
+import com.hospital.citas.service.ReglasAgendaService;
+import com.hospital.citas.service.reglas.LimitesAgenda;
+import com.hospital.citas.service.reglas.SolicitudCita;
+import com.hospital.citas.util.SingleFlight;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ValidationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 public class CitaServiceImpl implements CitaService {
 
+    private static final int MAXIMO_DIAS_OPERACION_MASIVA = 31;
+
     private final CitaRepository citaRepository;
     private final DoctorRepository doctorRepository;
     private final ConsultorioRepository consultorioRepository;
     private final PacienteRepository pacienteRepository;
+    private final OcupacionService ocupacionService;
+    private final ListaEsperaService listaEsperaService;
+    private final CambiosService cambiosService;
+    private final ReglasAgendaService reglasAgendaService;
+    private final TransactionTemplate lectura;
+
+    // Lecturas concurrentes idénticas comparten una sola consulta mientras está en curso
+    private final SingleFlight<String, List<CitaDTO>> lecturasEnCurso = new SingleFlight<>();
+    private final SingleFlight<String, AgendaCompactaDTO> agendasEnCurso = new SingleFlight<>();
+    private final SingleFlight<String, List<Map<String, Object>>> camposEnCurso = new SingleFlight<>();
 
     @Autowired
     public CitaServiceImpl(CitaRepository citaRepository, 
                           DoctorRepository doctorRepository, 
                           ConsultorioRepository consultorioRepository, 
-                          PacienteRepository pacienteRepository) {
+                          PacienteRepository pacienteRepository,
+                          OcupacionService ocupacionService,
+                          ListaEsperaService listaEsperaService,
+                          CambiosService cambiosService,
+                          ReglasAgendaService reglasAgendaService,
+                          PlatformTransactionManager transactionManager) {
         this.citaRepository = citaRepository;
         this.doctorRepository = doctorRepository;
         this.consultorioRepository = consultorioRepository;
         this.pacienteRepository = pacienteRepository;
+        this.ocupacionService = ocupacionService;
+        this.listaEsperaService = listaEsperaService;
+        this.cambiosService = cambiosService;
+        this.reglasAgendaService = reglasAgendaService;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
     }
 
     @Override
     @Transactional
     public CitaDTO crearCita(CitaDTO citaDTO) {
+        String sede = ContextoSede.getSede();
         // Obtener entidades desde los ids
-        Doctor doctor = doctorRepository.findById(citaDTO.getDoctorId())
-                .orElseThrow(() -> new EntityNotFoundException("Doctor no encontrado con id: " + citaDTO.getDoctorId()));
-        
-        Consultorio consultorio = consultorioRepository.findById(citaDTO.getConsultorioId())
-                .orElseThrow(() -> new EntityNotFoundException("Consultorio no encontrado con id: " + citaDTO.getConsultorioId()));
-        
-        Paciente paciente = pacienteRepository.findById(citaDTO.getPacienteId())
-                .orElseThrow(() -> new EntityNotFoundException("Paciente no encontrado con id: " + citaDTO.getPacienteId()));
+        EntidadesCita entidades = EtapaCitaEvento.medir(EtapaCitaEvento.CREAR, "busqueda", sede,
+                () -> buscarEntidades(citaDTO));
+        Doctor doctor = entidades.doctor();
+        Consultorio consultorio = entidades.consultorio();
+        Paciente paciente = entidades.paciente();
         
         LocalDateTime horarioCita = citaDTO.getHorarioConsulta();
         LocalDate fechaCita = horarioCita.toLocalDate();
@@ -61,28 +114,14 @@ public class CitaServiceImpl implements CitaService {
         // Validación: No se puede agendar cita para un mismo Dr. a la misma hora.
         // Estas validaciones están implementadas como restricciones de unicidad en la BD
         
-        // Validación: No se puede agendar cita para un paciente a una misma hora ni con menos de 2 horas de diferencia para el mismo día.
-        LocalDateTime dosPrevias = horarioCita.minusHours(2);
-        LocalDateTime dosPosterior = horarioCita.plusHours(2);
-        
-        List<Cita> citasConflictoPaciente = citaRepository.findByPacienteAndRangoHorario(
-                paciente.getId(), 
-                LocalDateTime.of(fechaCita, LocalTime.MIN), 
-                LocalDateTime.of(fechaCita, LocalTime.MAX)
-        );
-        
-        for (Cita cita : citasConflictoPaciente) {
-            LocalDateTime horarioExistente = cita.getHorarioConsulta();
-            if (horarioExistente.isAfter(dosPrevias) && horarioExistente.isBefore(dosPosterior)) {
-                throw new ValidationException("El paciente ya tiene una cita programada dentro del rango de 2 horas de la hora solicitada");
-            }
-        }
-        
-        // Validación: Un mismo doctor no puede tener más de 8 citas en el día.
-        int citasDoctor = citaRepository.countByDoctorAndFecha(doctor.getId(), fechaCita);
-        if (citasDoctor >= 8) {
-            throw new ValidationException("El doctor ya tiene el máximo de 8 citas para el día solicitado");
-        }
+        // Separación entre citas del paciente, máximo diario del doctor y demás reglas configuradas,
+        // evaluadas juntas sobre una sola consulta de las citas del día
+        EtapaCitaEvento.medir(EtapaCitaEvento.CREAR, "reglas", sede, () -> reglasAgendaService.validar(new SolicitudCita(
+                paciente.getId(),
+                doctor.getId(),
+                doctor.getEspecialidad(),
+                consultorio.getId(),
+                horarioCita)));
         
         // Crear y guardar la nueva cita
         Cita nuevaCita = new Cita();
@@ -91,17 +130,29 @@ public class CitaServiceImpl implements CitaService {
         nuevaCita.setPaciente(paciente);
         nuevaCita.setHorarioConsulta(horarioCita);
         nuevaCita.setActiva(true);
+        nuevaCita.setSede(sede);
         
-        Cita citaGuardada = citaRepository.save(nuevaCita);
+        Cita citaGuardada = EtapaCitaEvento.medir(EtapaCitaEvento.CREAR, "insercion", sede, () -> {
+            Cita guardada = citaRepository.save(nuevaCita);
+            ocupacionService.registrarCita(guardada);
+            cambiosService.registrarCambio(EventoCambio.Entidad.CITA, guardada.getId(), fechaCita);
+            return guardada;
+        });
         
-        return mapearCitaACitaDTO(citaGuardada);
+        return EtapaCitaEvento.medir(EtapaCitaEvento.CREAR, "mapeo", sede, () -> mapearCitaACitaDTO(citaGuardada));
     }
 
     @Override
     @Transactional
     public CitaDTO actualizarCita(Long id, CitaDTO citaDTO) {
-        Cita cita = citaRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Cita no encontrada con id: " + id));
+        String sede = ContextoSede.getSede();
+        Cita cita = EtapaCitaEvento.medir(EtapaCitaEvento.ACTUALIZAR, "busqueda", sede, () -> citaRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Cita no encontrada con id: " + id)));
+        
+        // Si el cliente envió la versión que leyó y la cita cambió desde entonces, se rechaza
+        if (citaDTO.getVersion() != null && !citaDTO.getVersion().equals(cita.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Cita.class, id);
+        }
         
         // Si la cita ya fue cancelada o sucedió en el pasado, no se puede actualizar
         if (!cita.isActiva() || cita.getHorarioConsulta().isBefore(LocalDateTime.now())) {
@@ -111,33 +162,140 @@ public class CitaServiceImpl implements CitaService {
         // Actualizar la cita como si fuera nueva, aplicando todas las validaciones
         citaDTO.setId(id);
         // Primero cancelamos la cita actual
-        cita.setActiva(false);
-        citaRepository.save(cita);
-        // Luego creamos una nueva
+        EtapaCitaEvento.medir(EtapaCitaEvento.ACTUALIZAR, "cancelacion", sede, () -> {
+            cita.setActiva(false);
+            citaRepository.save(cita);
+            ocupacionService.retirarCita(cita);
+            cambiosService.registrarCambio(EventoCambio.Entidad.CITA, id, cita.getHorarioConsulta().toLocalDate());
+        });
+        // Luego creamos una nueva; sus etapas se registran como operación crear
         return crearCita(citaDTO);
     }
 
     @Override
     @Transactional
-    public boolean cancelarCita(Long id) {
-        Cita cita = citaRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Cita no encontrada con id: " + id));
+    public boolean cancelarCita(Long id, Long version) {
+        // Solo se pueden cancelar citas futuras y activas; la condición se evalúa en la misma
+        // sentencia que cancela, así una cancelación y una reprogramación simultáneas no se pisan
+        String sede = ContextoSede.getSede();
+        int canceladas = EtapaCitaEvento.medir(EtapaCitaEvento.CANCELAR, "cancelacion", sede,
+                () -> citaRepository.cancelarSiActivaYFutura(id, version, LocalDateTime.now()));
         
-        // Solo se pueden cancelar citas futuras y activas
-        if (cita.getHorarioConsulta().isBefore(LocalDateTime.now())) {
-            throw new ValidationException("No se puede cancelar una cita que ya sucedió");
-        }
+        Cita cita = EtapaCitaEvento.medir(EtapaCitaEvento.CANCELAR, "busqueda", sede, () -> citaRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Cita no encontrada con id: " + id)));
         
-        if (!cita.isActiva()) {
-            throw new ValidationException("La cita ya está cancelada");
+        if (canceladas == 0) {
+            // Igual que en actualizarCita: la cita cambió desde que el cliente la leyó
+            if (version != null && !version.equals(cita.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Cita.class, id);
+            }
+            if (cita.getHorarioConsulta().isBefore(LocalDateTime.now())) {
+                throw new ValidationException("No se puede cancelar una cita que ya sucedió");
+            }
+            if (!cita.isActiva()) {
+                throw new ValidationException("La cita ya está cancelada");
+            }
+            return false;
         }
         
-        cita.setActiva(false);
-        citaRepository.save(cita);
+        // El horario liberado se ofrece a la lista de espera dentro de la misma transacción;
+        // si se asigna, la ocupación del doctor y del consultorio no cambia
+        EtapaCitaEvento.medir(EtapaCitaEvento.CANCELAR, "lista_espera", sede, () -> {
+            if (listaEsperaService.asignarHorarioLiberado(cita).isEmpty()) {
+                ocupacionService.retirarCita(cita);
+            }
+            cambiosService.registrarCambio(EventoCambio.Entidad.CITA, id, cita.getHorarioConsulta().toLocalDate());
+        });
         return true;
     }
 
+    // Cancela en bloque las citas activas y futuras de un doctor o consultorio, por ejemplo
+    // por una ausencia: una consulta para obtener las citas y una sola sentencia para cancelarlas
+    @Override
+    @Transactional
+    public ResultadoMasivoDTO cancelarCitasMasivo(OperacionMasivaDTO operacion) {
+        validarSeleccionMasiva(operacion);
+        List<Cita> citas = buscarCitasParaOperacionMasiva(operacion);
+        if (citas.isEmpty()) {
+            return new ResultadoMasivoDTO(0, List.of());
+        }
+        
+        int canceladas = citaRepository.cancelarPorIds(citas.stream().map(Cita::getId).collect(Collectors.toList()));
+        validarTodasActualizadas(canceladas, citas);
+        
+        // Las entidades quedaron desconectadas tras la actualización masiva; se ajustan en memoria
+        // para actualizar la ocupación y devolver el resumen
+        for (Cita cita : citas) {
+            ocupacionService.retirarCita(cita);
+            cita.setActiva(false);
+        }
+        registrarCambiosPorDia(citas);
+        List<CitaDTO> afectadas = citas.stream()
+                .map(this::mapearCitaACitaDTO)
+                .collect(Collectors.toList());
+        return new ResultadoMasivoDTO(canceladas, afectadas);
+    }
+
+    // Mueve en bloque las citas de un doctor o consultorio a otro doctor o consultorio,
+    // validando el conjunto completo antes de modificar nada
     @Override
+    @Transactional
+    public ResultadoMasivoDTO reasignarCitasMasivo(OperacionMasivaDTO operacion) {
+        validarSeleccionMasiva(operacion);
+        if ((operacion.getNuevoDoctorId() == null) == (operacion.getNuevoConsultorioId() == null)) {
+            throw new ValidationException("Se debe indicar un nuevo doctor o un nuevo consultorio, pero no ambos");
+        }
+        
+        Doctor nuevoDoctor = null;
+        Consultorio nuevoConsultorio = null;
+        if (operacion.getNuevoDoctorId() != null) {
+            nuevoDoctor = doctorRepository.findById(operacion.getNuevoDoctorId())
+                    .orElseThrow(() -> new EntityNotFoundException("Doctor no encontrado con id: " + operacion.getNuevoDoctorId()));
+        } else {
+            nuevoConsultorio = consultorioRepository.findById(operacion.getNuevoConsultorioId())
+                    .orElseThrow(() -> new EntityNotFoundException("Consultorio no encontrado con id: " + operacion.getNuevoConsultorioId()));
+        }
+        
+        List<Cita> citas = buscarCitasParaOperacionMasiva(operacion);
+        if (citas.isEmpty()) {
+            return new ResultadoMasivoDTO(0, List.of());
+        }
+        List<Long> ids = citas.stream().map(Cita::getId).collect(Collectors.toList());
+        List<LocalDateTime> horarios = citas.stream().map(Cita::getHorarioConsulta).collect(Collectors.toList());
+        
+        int reasignadas;
+        if (nuevoDoctor != null) {
+            validarHorariosLibres(citaRepository.findHorariosTomadosPorDoctor(nuevoDoctor.getId(), horarios),
+                    "El doctor destino ya tiene citas en los horarios: ");
+            validarMaximoDiarioDoctor(nuevoDoctor, citas, operacion);
+            validarMaximoDiarioEspecialidad(nuevoDoctor, citas, operacion);
+            reasignadas = citaRepository.reasignarDoctorPorIds(ids, nuevoDoctor);
+        } else {
+            validarHorariosLibres(citaRepository.findHorariosTomadosPorConsultorio(nuevoConsultorio.getId(), horarios),
+                    "El consultorio destino ya está ocupado en los horarios: ");
+            validarHorarioConsultorio(nuevoConsultorio, horarios);
+            reasignadas = citaRepository.reasignarConsultorioPorIds(ids, nuevoConsultorio);
+        }
+        validarTodasActualizadas(reasignadas, citas);
+        
+        for (Cita cita : citas) {
+            ocupacionService.retirarCita(cita);
+            if (nuevoDoctor != null) {
+                cita.setDoctor(nuevoDoctor);
+            } else {
+                cita.setConsultorio(nuevoConsultorio);
+            }
+            ocupacionService.registrarCita(cita);
+        }
+        registrarCambiosPorDia(citas);
+        List<CitaDTO> afectadas = citas.stream()
+                .map(this::mapearCitaACitaDTO)
+                .collect(Collectors.toList());
+        return new ResultadoMasivoDTO(reasignadas, afectadas);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public CitaDTO obtenerCitaPorId(Long id) {
         Cita cita = citaRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Cita no encontrada con id: " + id));
@@ -146,30 +304,245 @@ public class CitaServiceImpl implements CitaService {
 
     @Override
     public List<CitaDTO> obtenerTodasLasCitas() {
-        return citaRepository.findAll().stream()
-                .map(this::mapearCitaACitaDTO)
-                .collect(Collectors.toList());
+        return leerAgrupado(lecturasEnCurso, "todas", () -> mapearCitas(citaRepository.findAll()));
     }
 
     @Override
     public List<CitaDTO> obtenerCitasPorFecha(LocalDate fecha) {
-        return citaRepository.findByFecha(fecha).stream()
-                .map(this::mapearCitaACitaDTO)
-                .collect(Collectors.toList());
+        return leerAgrupado(lecturasEnCurso, "fecha:" + fecha,
+                () -> mapearCitas(citaRepository.findByFecha(fecha)));
     }
 
     @Override
     public List<CitaDTO> obtenerCitasPorDoctorYFecha(Long doctorId, LocalDate fecha) {
-        return citaRepository.findByDoctorAndFecha(doctorId, fecha).stream()
-                .map(this::mapearCitaACitaDTO)
-                .collect(Collectors.toList());
+        return leerAgrupado(lecturasEnCurso, "doctor:" + doctorId + ":" + fecha,
+                () -> mapearCitas(citaRepository.findByDoctorAndFecha(doctorId, fecha)));
     }
 
     @Override
     public List<CitaDTO> obtenerCitasPorConsultorioYFecha(Long consultorioId, LocalDate fecha) {
-        return citaRepository.findByConsultorioAndFecha(consultorioId, fecha).stream()
+        return leerAgrupado(lecturasEnCurso, "consultorio:" + consultorioId + ":" + fecha,
+                () -> mapearCitas(citaRepository.findByConsultorioAndFecha(consultorioId, fecha)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CitaDTO> obtenerCitasPorCurpPaciente(String curp) {
+        return mapearCitas(citaRepository.findByCurpPaciente(curp));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaDTO<CitaDTO> buscarCitas(BusquedaCitasDTO filtro, Pageable pageable) {
+        if (filtro.getDesde() != null && filtro.getHasta() != null && filtro.getHasta().isBefore(filtro.getDesde())) {
+            throw new ValidationException("La fecha final no puede ser anterior a la inicial");
+        }
+        Page<Cita> pagina = citaRepository.findAll(CitaEspecificaciones.desdeFiltro(filtro), pageable);
+        return new PaginaDTO<>(mapearCitas(pagina.getContent()), pagina.getNumber(), pagina.getSize(),
+                pagina.getTotalElements(), pagina.getTotalPages());
+    }
+
+    @Override
+    public AgendaCompactaDTO obtenerAgendaCompacta() {
+        return leerAgrupado(agendasEnCurso, "todas", () -> compactarCitas(citaRepository.findAll()));
+    }
+
+    @Override
+    public AgendaCompactaDTO obtenerAgendaCompactaPorFecha(LocalDate fecha) {
+        return leerAgrupado(agendasEnCurso, "fecha:" + fecha,
+                () -> compactarCitas(citaRepository.findByFecha(fecha)));
+    }
+
+    @Override
+    public AgendaCompactaDTO obtenerAgendaCompactaPorDoctorYFecha(Long doctorId, LocalDate fecha) {
+        return leerAgrupado(agendasEnCurso, "doctor:" + doctorId + ":" + fecha,
+                () -> compactarCitas(citaRepository.findByDoctorAndFecha(doctorId, fecha)));
+    }
+
+    @Override
+    public AgendaCompactaDTO obtenerAgendaCompactaPorConsultorioYFecha(Long consultorioId, LocalDate fecha) {
+        return leerAgrupado(agendasEnCurso, "consultorio:" + consultorioId + ":" + fecha,
+                () -> compactarCitas(citaRepository.findByConsultorioAndFecha(consultorioId, fecha)));
+    }
+
+    @Override
+    public List<Map<String, Object>> obtenerCamposDeCitas(Set<CampoCita> campos, LocalDate fecha,
+                                                          Long doctorId, Long consultorioId) {
+        String clave = "campos:" + campos + ":" + fecha + ":" + doctorId + ":" + consultorioId;
+        return leerAgrupado(camposEnCurso, clave,
+                () -> List.copyOf(citaRepository.findCampos(campos, fecha, doctorId, consultorioId)));
+    }
+
+    private void validarSeleccionMasiva(OperacionMasivaDTO operacion) {
+        if ((operacion.getDoctorId() == null) == (operacion.getConsultorioId() == null)) {
+            throw new ValidationException("Se debe indicar un doctor o un consultorio, pero no ambos");
+        }
+        if (operacion.getHasta().isBefore(operacion.getDesde())) {
+            throw new ValidationException("La fecha final no puede ser anterior a la inicial");
+        }
+        if (ChronoUnit.DAYS.between(operacion.getDesde(), operacion.getHasta()) >= MAXIMO_DIAS_OPERACION_MASIVA) {
+            throw new ValidationException("El rango no puede exceder " + MAXIMO_DIAS_OPERACION_MASIVA + " días");
+        }
+    }
+
+    // Solo se consideran citas futuras, aunque el rango incluya el día de hoy
+    private List<Cita> buscarCitasParaOperacionMasiva(OperacionMasivaDTO operacion) {
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime inicio = operacion.getDesde().atStartOfDay();
+        return citaRepository.findActivasEnRango(
+                inicio.isAfter(ahora) ? inicio : ahora,
+                operacion.getHasta().plusDays(1).atStartOfDay(),
+                operacion.getDoctorId(),
+                operacion.getConsultorioId());
+    }
+
+    private void validarHorariosLibres(List<LocalDateTime> ocupados, String mensaje) {
+        if (!ocupados.isEmpty()) {
+            throw new ValidationException(mensaje + new TreeSet<>(ocupados));
+        }
+    }
+
+    // Mismas reglas HORARIO_CONSULTORIO que al crear una cita
+    private void validarHorarioConsultorio(Consultorio consultorio, List<LocalDateTime> horarios) {
+        LimitesAgenda limites = reglasAgendaService.obtenerLimites();
+        Set<LocalDateTime> fueraDeHorario = horarios.stream()
+                .filter(horario -> !limites.atiende(consultorio.getId(), horario.toLocalTime()))
+                .collect(Collectors.toCollection(TreeSet::new));
+        if (!fueraDeHorario.isEmpty()) {
+            throw new ValidationException("El consultorio destino no atiende en los horarios: " + fueraDeHorario);
+        }
+    }
+
+    private void validarMaximoDiarioDoctor(Doctor doctor, List<Cita> citas, OperacionMasivaDTO operacion) {
+        int maximo = reglasAgendaService.obtenerLimites().maximoCitasDoctor(doctor.getId(), doctor.getEspecialidad());
+        Map<LocalDate, Long> nuevasPorDia = citas.stream()
+                .collect(Collectors.groupingBy(cita -> cita.getHorarioConsulta().toLocalDate(), Collectors.counting()));
+        List<ConteoDia> existentes = citaRepository.contarPorDiaDeDoctor(doctor.getId(),
+                operacion.getDesde().atStartOfDay(), operacion.getHasta().plusDays(1).atStartOfDay());
+        for (ConteoDia conteo : existentes) {
+            long total = conteo.getTotal() + nuevasPorDia.getOrDefault(conteo.getFecha(), 0L);
+            if (total > maximo) {
+                throw new ValidationException("El doctor destino excedería el máximo de "
+                        + maximo + " citas el día " + conteo.getFecha());
+            }
+        }
+        nuevasPorDia.forEach((fecha, total) -> {
+            if (total > maximo) {
+                throw new ValidationException("El doctor destino excedería el máximo de "
+                        + maximo + " citas el día " + fecha);
+            }
+        });
+    }
+
+    // Mismo límite MAXIMO_CITAS_ESPECIALIDAD que al crear una cita. Solo suman las citas que
+    // vienen de un doctor de otra especialidad; las de la misma ya están en el conteo del día
+    private void validarMaximoDiarioEspecialidad(Doctor doctor, List<Cita> citas, OperacionMasivaDTO operacion) {
+        String especialidad = doctor.getEspecialidad();
+        OptionalInt maximo = reglasAgendaService.obtenerLimites().maximoCitasEspecialidad(especialidad);
+        if (maximo.isEmpty()) {
+            return;
+        }
+        Map<LocalDate, Long> nuevasPorDia = citas.stream()
+                .filter(cita -> !especialidad.equals(cita.getDoctor().getEspecialidad()))
+                .collect(Collectors.groupingBy(cita -> cita.getHorarioConsulta().toLocalDate(), Collectors.counting()));
+        if (nuevasPorDia.isEmpty()) {
+            return;
+        }
+        Map<LocalDate, Long> existentes = citaRepository.contarPorDiaDeEspecialidad(especialidad,
+                        operacion.getDesde().atStartOfDay(), operacion.getHasta().plusDays(1).atStartOfDay())
+                .stream()
+                .collect(Collectors.toMap(ConteoDia::getFecha, ConteoDia::getTotal));
+        new TreeMap<>(nuevasPorDia).forEach((fecha, nuevas) -> {
+            if (existentes.getOrDefault(fecha, 0L) + nuevas > maximo.getAsInt()) {
+                throw new ValidationException("La especialidad " + especialidad + " excedería el máximo de "
+                        + maximo.getAsInt() + " citas el día " + fecha);
+            }
+        });
+    }
+
+    // Las sentencias masivas solo modifican citas que siguen activas; si otra operación canceló
+    // alguna después de leerlas, la ocupación y el resumen ya no corresponden y se revierte todo
+    private void validarTodasActualizadas(int actualizadas, List<Cita> citas) {
+        if (actualizadas != citas.size()) {
+            throw new ObjectOptimisticLockingFailureException(Cita.class, citas.get(0).getId());
+        }
+    }
+
+    // Un evento por día de agenda afectado, no uno por cita
+    private void registrarCambiosPorDia(List<Cita> citas) {
+        Set<LocalDate> fechas = citas.stream()
+                .map(cita -> cita.getHorarioConsulta().toLocalDate())
+                .collect(Collectors.toCollection(TreeSet::new));
+        fechas.forEach(fecha -> cambiosService.registrarCambio(EventoCambio.Entidad.CITA, null, fecha));
+    }
+
+    // Método auxiliar para construir la agenda compacta: las citas solo llevan ids y
+    // los datos de doctores, consultorios y pacientes se envían una vez en diccionarios
+    private AgendaCompactaDTO compactarCitas(List<Cita> citas) {
+        Map<Long, AgendaCompactaDTO.DoctorResumen> doctores = new HashMap<>();
+        Map<Long, AgendaCompactaDTO.ConsultorioResumen> consultorios = new HashMap<>();
+        Map<Long, AgendaCompactaDTO.PacienteResumen> pacientes = new HashMap<>();
+
+        List<CitaResumenDTO> resumenes = citas.stream()
+                .map(cita -> {
+                    Doctor doctor = cita.getDoctor();
+                    Consultorio consultorio = cita.getConsultorio();
+                    Paciente paciente = cita.getPaciente();
+                    doctores.computeIfAbsent(doctor.getId(), id -> new AgendaCompactaDTO.DoctorResumen(
+                            id, doctor.getNombre(), doctor.getApellidoPaterno(), doctor.getApellidoMaterno(),
+                            doctor.getEspecialidad()));
+                    consultorios.computeIfAbsent(consultorio.getId(), id -> new AgendaCompactaDTO.ConsultorioResumen(
+                            id, consultorio.getNumeroConsultorio(), consultorio.getPiso()));
+                    pacientes.computeIfAbsent(paciente.getId(), id -> new AgendaCompactaDTO.PacienteResumen(
+                            id, paciente.getNombre(), paciente.getApellidos()));
+                    return new CitaResumenDTO(
+                            cita.getId(),
+                            consultorio.getId(),
+                            doctor.getId(),
+                            paciente.getId(),
+                            cita.getHorarioConsulta(),
+                            cita.isActiva());
+                })
+                .collect(Collectors.toUnmodifiableList());
+
+        return new AgendaCompactaDTO(resumenes, Map.copyOf(doctores), Map.copyOf(consultorios), Map.copyOf(pacientes));
+    }
+
+    private record EntidadesCita(Doctor doctor, Consultorio consultorio, Paciente paciente) {
+    }
+
+    private EntidadesCita buscarEntidades(CitaDTO citaDTO) {
+        Doctor doctor = doctorRepository.findById(citaDTO.getDoctorId())
+                .orElseThrow(() -> new EntityNotFoundException("Doctor no encontrado con id: " + citaDTO.getDoctorId()));
+        
+        Consultorio consultorio = consultorioRepository.findById(citaDTO.getConsultorioId())
+                .orElseThrow(() -> new EntityNotFoundException("Consultorio no encontrado con id: " + citaDTO.getConsultorioId()));
+        
+        Paciente paciente = pacienteRepository.findById(citaDTO.getPacienteId())
+                .orElseThrow(() -> new EntityNotFoundException("Paciente no encontrado con id: " + citaDTO.getPacienteId()));
+        return new EntidadesCita(doctor, consultorio, paciente);
+    }
+
+    // La agrupación queda fuera de la transacción: solo la llamada que ejecuta la consulta abre
+    // una transacción de lectura y toma una conexión del pool; las que esperan su resultado no
+    // ocupan ninguna
+    private <T> T leerAgrupado(SingleFlight<String, T> enCurso, String clave, Supplier<T> consulta) {
+        return enCurso.ejecutar(claveLectura(clave), () -> lectura.execute(estado -> consulta.get()));
+    }
+
+    // Las lecturas que deben ir al primario no se agrupan con las que pueden ir a una réplica,
+    // ni las de una sede con las de otra
+    private String claveLectura(String clave) {
+        String sede = ContextoSede.getSede();
+        String conSede = sede != null ? sede + ":" + clave : clave;
+        return ContextoRuteo.isPrimarioForzado() ? "primario:" + conSede : conSede;
+    }
+
+    // La lista resultante puede ser compartida entre varias peticiones, por eso es inmutable
+    private List<CitaDTO> mapearCitas(List<Cita> citas) {
+        return citas.stream()
                 .map(this::mapearCitaACitaDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toUnmodifiableList());
     }
 
     // Método auxiliar para convertir entidad a DTO
@@ -181,6 +554,8 @@ public class CitaServiceImpl implements CitaService {
         citaDTO.setPacienteId(cita.getPaciente().getId());
         citaDTO.setHorarioConsulta(cita.getHorarioConsulta());
         citaDTO.setActiva(cita.isActiva());
+        citaDTO.setVersion(cita.getVersion());
+        citaDTO.setSede(cita.getSede());
         
         // Información adicional para mostrar
         citaDTO.setNombrePaciente(cita.getPaciente().getNombre());
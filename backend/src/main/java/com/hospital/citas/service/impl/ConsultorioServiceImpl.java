@@ -1,10 +1,15 @@
 package com.hospital.citas.service.impl;
 
+import com.hospital.citas.config.ContextoSede;
+import com.hospital.citas.model.EventoCambio;
 import com.hospital.citas.model.Consultorio;
 import com.hospital.citas.repository.ConsultorioRepository;
+import com.hospital.citas.service.CambiosService;
 import com.hospital.citas.service.ConsultorioService;
+import com.hospital.citas.service.OcupacionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,29 +18,44 @@ import java.util.Optional;
 public class ConsultorioServiceImpl implements ConsultorioService {
 
     private final ConsultorioRepository consultorioRepository;
+    private final CambiosService cambiosService;
+    private final OcupacionService ocupacionService;
 
     @Autowired
-    public ConsultorioServiceImpl(ConsultorioRepository consultorioRepository) {
+    public ConsultorioServiceImpl(ConsultorioRepository consultorioRepository, CambiosService cambiosService,
+                                  OcupacionService ocupacionService) {
         this.consultorioRepository = consultorioRepository;
+        this.cambiosService = cambiosService;
+        this.ocupacionService = ocupacionService;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Consultorio> obtenerTodosLosConsultorios() {
         return consultorioRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Consultorio> obtenerConsultorioPorId(Long id) {
         return consultorioRepository.findById(id);
     }
 
     @Override
+    @Transactional
     public Consultorio guardarConsultorio(Consultorio consultorio) {
-        return consultorioRepository.save(consultorio);
+        consultorio.setSede(ContextoSede.getSede());
+        Consultorio consultorioGuardado = consultorioRepository.save(consultorio);
+        cambiosService.registrarCambio(EventoCambio.Entidad.CONSULTORIO, consultorioGuardado.getId(), null);
+        ocupacionService.consultoriosModificados();
+        return consultorioGuardado;
     }
 
     @Override
+    @Transactional
     public void eliminarConsultorio(Long id) {
         consultorioRepository.deleteById(id);
+        cambiosService.registrarCambio(EventoCambio.Entidad.CONSULTORIO, id, null);
+        ocupacionService.consultoriosModificados();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,118 @@
+package com.hospital.citas.service.impl;
+
+import com.hospital.citas.dto.DisponibilidadDTO;
+import com.hospital.citas.dto.DisponibilidadDiaDTO;
+import com.hospital.citas.repository.CitaRepository;
+import com.hospital.citas.repository.DoctorRepository;
+import com.hospital.citas.repository.HorarioOcupado;
+import com.hospital.citas.service.DisponibilidadService;
+import com.hospital.citas.service.ReglasAgendaService;
+import com.hospital.citas.service.reglas.LimitesAgenda;
+import jakarta.validation.ValidationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+// Resumen de capacidad por día para vistas de calendario: una sola consulta por rango. La
+// capacidad sale de las reglas activas de la sede (máximo de citas y horario de consultorios)
+@Service
+public class DisponibilidadServiceImpl implements DisponibilidadService {
+
+    private static final int MAXIMO_DIAS = 92;
+
+    private final CitaRepository citaRepository;
+    private final DoctorRepository doctorRepository;
+    private final ReglasAgendaService reglasAgendaService;
+
+    @Autowired
+    public DisponibilidadServiceImpl(CitaRepository citaRepository,
+                                     DoctorRepository doctorRepository,
+                                     ReglasAgendaService reglasAgendaService) {
+        this.citaRepository = citaRepository;
+        this.doctorRepository = doctorRepository;
+        this.reglasAgendaService = reglasAgendaService;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public DisponibilidadDTO obtenerDisponibilidadDoctor(Long doctorId, LocalDate desde, LocalDate hasta) {
+        validarRango(desde, hasta);
+        LimitesAgenda limites = reglasAgendaService.obtenerLimites();
+        // La especialidad solo se lee si alguna regla de máximo depende de ella
+        String especialidad = limites.dependeDeEspecialidad()
+                ? doctorRepository.findEspecialidadById(doctorId).orElse(null) : null;
+        List<HorarioOcupado> ocupados = citaRepository.findHorariosOcupados(
+                desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay(), doctorId, null, null);
+        return resumir("DOCTOR", String.valueOf(doctorId), desde, hasta, ocupados,
+                limites.maximoCitasDoctor(doctorId, especialidad));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public DisponibilidadDTO obtenerDisponibilidadConsultorio(Long consultorioId, LocalDate desde, LocalDate hasta) {
+        validarRango(desde, hasta);
+        List<HorarioOcupado> ocupados = citaRepository.findHorariosOcupados(
+                desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay(), null, consultorioId, null);
+        return resumir("CONSULTORIO", String.valueOf(consultorioId), desde, hasta, ocupados,
+                reglasAgendaService.obtenerLimites().horasConsultorio(consultorioId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public DisponibilidadDTO obtenerDisponibilidadEspecialidad(String especialidad, LocalDate desde, LocalDate hasta) {
+        validarRango(desde, hasta);
+        int capacidad = capacidadEspecialidad(reglasAgendaService.obtenerLimites(), especialidad);
+        List<HorarioOcupado> ocupados = citaRepository.findHorariosOcupados(
+                desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay(), null, null, especialidad);
+        return resumir("ESPECIALIDAD", especialidad, desde, hasta, ocupados, capacidad);
+    }
+
+    // Con reglas para doctores concretos se suma el máximo de cada doctor; si no, todos los de la
+    // especialidad tienen el mismo y basta con contarlos. Un máximo por especialidad acota el total
+    private int capacidadEspecialidad(LimitesAgenda limites, String especialidad) {
+        int capacidad;
+        if (limites.hayMaximosPorDoctor()) {
+            capacidad = doctorRepository.findIdsByEspecialidad(especialidad).stream()
+                    .mapToInt(doctorId -> limites.maximoCitasDoctor(doctorId, especialidad))
+                    .sum();
+        } else {
+            capacidad = (int) doctorRepository.countByEspecialidad(especialidad)
+                    * limites.maximoCitasDoctor(null, especialidad);
+        }
+        int maximo = limites.maximoCitasEspecialidad(especialidad).orElse(capacidad);
+        return Math.min(capacidad, maximo);
+    }
+
+    private void validarRango(LocalDate desde, LocalDate hasta) {
+        if (hasta.isBefore(desde)) {
+            throw new ValidationException("La fecha final no puede ser anterior a la inicial");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) >= MAXIMO_DIAS) {
+            throw new ValidationException("El rango no puede exceder " + MAXIMO_DIAS + " días");
+        }
+    }
+
+    private DisponibilidadDTO resumir(String tipo, String referencia, LocalDate desde, LocalDate hasta,
+                                      List<HorarioOcupado> ocupados, int capacidadDiaria) {
+        int dias = (int) ChronoUnit.DAYS.between(desde, hasta) + 1;
+        int[] citas = new int[dias];
+        int[] horas = new int[dias];
+        for (HorarioOcupado ocupado : ocupados) {
+            int dia = (int) ChronoUnit.DAYS.between(desde, ocupado.getHorarioConsulta().toLocalDate());
+            citas[dia]++;
+            horas[dia] |= 1 << ocupado.getHorarioConsulta().getHour();
+        }
+
+        List<DisponibilidadDiaDTO> resumen = new ArrayList<>(dias);
+        for (int i = 0; i < dias; i++) {
+            resumen.add(new DisponibilidadDiaDTO(desde.plusDays(i), citas[i], capacidadDiaria,
+                    Math.max(capacidadDiaria - citas[i], 0), horas[i]));
+        }
+        return new DisponibilidadDTO(tipo, referencia, desde, hasta, resumen);
+    }
+}
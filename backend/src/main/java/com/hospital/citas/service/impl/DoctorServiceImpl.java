@@ -1,10 +1,14 @@
 package com.hospital.citas.service.impl;
 
+import com.hospital.citas.config.ContextoSede;
+import com.hospital.citas.model.EventoCambio;
 import com.hospital.citas.model.Doctor;
 import com.hospital.citas.repository.DoctorRepository;
+import com.hospital.citas.service.CambiosService;
 import com.hospital.citas.service.DoctorService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,29 +17,39 @@ import java.util.Optional;
 public class DoctorServiceImpl implements DoctorService {
 
     private final DoctorRepository doctorRepository;
+    private final CambiosService cambiosService;
 
     @Autowired
-    public DoctorServiceImpl(DoctorRepository doctorRepository) {
+    public DoctorServiceImpl(DoctorRepository doctorRepository, CambiosService cambiosService) {
         this.doctorRepository = doctorRepository;
+        this.cambiosService = cambiosService;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Doctor> obtenerTodosLosDoctores() {
         return doctorRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Doctor> obtenerDoctorPorId(Long id) {
         return doctorRepository.findById(id);
     }
 
     @Override
+    @Transactional
     public Doctor guardarDoctor(Doctor doctor) {
-        return doctorRepository.save(doctor);
+        doctor.setSede(ContextoSede.getSede());
+        Doctor doctorGuardado = doctorRepository.save(doctor);
+        cambiosService.registrarCambio(EventoCambio.Entidad.DOCTOR, doctorGuardado.getId(), null);
+        return doctorGuardado;
     }
 
     @Override
+    @Transactional
     public void eliminarDoctor(Long id) {
         doctorRepository.deleteById(id);
+        cambiosService.registrarCambio(EventoCambio.Entidad.DOCTOR, id, null);
     }
 } 
\ No newline at end of file
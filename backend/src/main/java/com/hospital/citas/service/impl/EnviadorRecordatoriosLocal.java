@@ -0,0 +1,20 @@
+package com.hospital.citas.service.impl;
+
+import com.hospital.citas.dto.RecordatorioDTO;
+import com.hospital.citas.service.EnviadorRecordatorios;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+// Enviador de prueba: solo registra el recordatorio en el log
+@Component
+public class EnviadorRecordatoriosLocal implements EnviadorRecordatorios {
+
+    private static final Logger log = LoggerFactory.getLogger(EnviadorRecordatoriosLocal.class);
+
+    @Override
+    public void enviar(RecordatorioDTO recordatorio) {
+        log.debug("Recordatorio para {} {}: cita {} el {}", recordatorio.getNombrePaciente(),
+                recordatorio.getApellidosPaciente(), recordatorio.getCitaId(), recordatorio.getHorarioConsulta());
+    }
+}
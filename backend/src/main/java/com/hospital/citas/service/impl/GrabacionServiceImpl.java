@@ -0,0 +1,159 @@
+package com.hospital.citas.service.impl;
+
+import com.hospital.citas.dto.EstadoGrabacionDTO;
+import com.hospital.citas.perfilado.EtapaCitaEvento;
+import com.hospital.citas.perfilado.SerializacionRespuestaEvento;
+import com.hospital.citas.service.GrabacionService;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ValidationException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+
+// Grabación de Java Flight Recorder bajo demanda para investigar picos de latencia: junto con
+// los eventos de etapas de citas y de serialización incluye GC, bloqueos y muestreo de métodos
+// de la configuración indicada. Siempre está acotada en antigüedad y tamaño, así que puede
+// quedarse activa en producción sin llenar el disco. Solo hay una grabación a la vez.
+// Los eventos que copian el entorno, las propiedades del sistema o los argumentos de la JVM
+// se desactivan siempre, porque ahí están las credenciales de la base de datos.
+@Service
+public class GrabacionServiceImpl implements GrabacionService {
+
+    private static final Logger log = LoggerFactory.getLogger(GrabacionServiceImpl.class);
+
+    private static final long BYTES_POR_MB = 1024L * 1024L;
+
+    private static final List<String> EVENTOS_SENSIBLES = List.of(
+            "jdk.InitialEnvironmentVariable",
+            "jdk.InitialSystemProperty",
+            "jdk.InitialSecurityProperty",
+            "jdk.JVMInformation");
+
+    private final String configuracion;
+    private final long duracionMaximaMinutos;
+    private final long tamanoMaximoMb;
+
+    private Recording grabacion;
+
+    @Autowired
+    public GrabacionServiceImpl(@Value("${hospital.perfilado.configuracion:profile}") String configuracion,
+                                @Value("${hospital.perfilado.duracion-maxima-minutos:30}") long duracionMaximaMinutos,
+                                @Value("${hospital.perfilado.tamano-maximo-mb:100}") long tamanoMaximoMb) {
+        this.configuracion = configuracion;
+        this.duracionMaximaMinutos = duracionMaximaMinutos;
+        this.tamanoMaximoMb = tamanoMaximoMb;
+    }
+
+    @Override
+    public synchronized EstadoGrabacionDTO iniciar(Long duracionMinutos, Long tamanoMb) {
+        if (activa()) {
+            throw new IllegalStateException("Ya hay una grabación en curso");
+        }
+        long duracion = acotar(duracionMinutos, duracionMaximaMinutos, "La duración");
+        long tamano = acotar(tamanoMb, tamanoMaximoMb, "El tamaño");
+
+        Recording nueva;
+        try {
+            nueva = new Recording(Configuration.getConfiguration(configuracion));
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("No se pudo leer la configuración de JFR " + configuracion, e);
+        }
+        nueva.setName("hospital-citas");
+        nueva.setToDisk(true);
+        // Se conservan los últimos minutos y megabytes; lo anterior se descarta
+        nueva.setMaxAge(Duration.ofMinutes(duracion));
+        nueva.setMaxSize(tamano * BYTES_POR_MB);
+        nueva.enable(EtapaCitaEvento.class).withoutStackTrace();
+        nueva.enable(SerializacionRespuestaEvento.class).withoutStackTrace();
+        EVENTOS_SENSIBLES.forEach(nueva::disable);
+        try {
+            nueva.start();
+        } catch (RuntimeException e) {
+            nueva.close();
+            throw e;
+        }
+        cerrar();
+        grabacion = nueva;
+        log.info("Grabación JFR iniciada ({} minutos, {} MB)", duracion, tamano);
+        return obtenerEstado();
+    }
+
+    @Override
+    public synchronized EstadoGrabacionDTO detener() {
+        if (!activa()) {
+            throw new IllegalStateException("No hay una grabación en curso");
+        }
+        grabacion.stop();
+        log.info("Grabación JFR detenida");
+        return obtenerEstado();
+    }
+
+    @Override
+    public synchronized EstadoGrabacionDTO obtenerEstado() {
+        if (grabacion == null) {
+            return new EstadoGrabacionDTO(false, null, 0, 0, 0);
+        }
+        return new EstadoGrabacionDTO(
+                activa(),
+                grabacion.getStartTime(),
+                grabacion.getMaxAge().toMinutes(),
+                grabacion.getMaxSize() / BYTES_POR_MB,
+                grabacion.getSize());
+    }
+
+    // Funciona con la grabación activa o detenida, mientras no se inicie otra. No se copia a un
+    // archivo temporal, así que una descarga abandonada no deja nada en disco.
+    @Override
+    public synchronized InputStream volcar() {
+        if (grabacion == null) {
+            throw new IllegalStateException("No hay una grabación para volcar");
+        }
+        try {
+            InputStream datos = grabacion.getStream(null, null);
+            if (datos == null) {
+                throw new IllegalStateException("La grabación todavía no tiene datos");
+            }
+            return datos;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo volcar la grabación", e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void detenerAlSalir() {
+        cerrar();
+    }
+
+    private boolean activa() {
+        return grabacion != null && grabacion.getState() == RecordingState.RUNNING;
+    }
+
+    private void cerrar() {
+        if (grabacion != null) {
+            grabacion.close();
+            grabacion = null;
+        }
+    }
+
+    private static long acotar(Long pedido, long maximo, String nombre) {
+        if (pedido == null) {
+            return maximo;
+        }
+        if (pedido <= 0 || pedido > maximo) {
+            throw new ValidationException(nombre + " debe estar entre 1 y " + maximo);
+        }
+        return pedido;
+    }
+}
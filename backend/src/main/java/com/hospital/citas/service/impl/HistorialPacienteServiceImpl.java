@@ -0,0 +1,35 @@
+package com.hospital.citas.service.impl;
+
+import com.hospital.citas.config.Sedes;
+import com.hospital.citas.dto.CitaDTO;
+import com.hospital.citas.service.CitaService;
+import com.hospital.citas.service.HistorialPacienteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Consulta las citas del paciente en la base de cada sede en paralelo y une los resultados.
+// No es transaccional: cada sede abre su propia transacción de lectura en su hilo.
+@Service
+public class HistorialPacienteServiceImpl implements HistorialPacienteService {
+
+    private final CitaService citaService;
+    private final Sedes sedes;
+
+    @Autowired
+    public HistorialPacienteServiceImpl(CitaService citaService, Sedes sedes) {
+        this.citaService = citaService;
+        this.sedes = sedes;
+    }
+
+    @Override
+    public List<CitaDTO> obtenerHistorial(String curp) {
+        return sedes.enCadaSede(sede -> citaService.obtenerCitasPorCurpPaciente(curp)).stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(CitaDTO::getHorarioConsulta).reversed())
+                .collect(Collectors.toUnmodifiableList());
+    }
+}
@@ -0,0 +1,162 @@
+package com.hospital.citas.service.impl;
+
+import com.hospital.citas.dto.ListaEsperaDTO;
+import com.hospital.citas.model.Cita;
+import com.hospital.citas.model.Doctor;
+import com.hospital.citas.model.ListaEspera;
+import com.hospital.citas.model.Paciente;
+import com.hospital.citas.repository.CitaRepository;
+import com.hospital.citas.repository.DoctorRepository;
+import com.hospital.citas.repository.ListaEsperaRepository;
+import com.hospital.citas.repository.PacienteRepository;
+import com.hospital.citas.service.ListaEsperaService;
+import com.hospital.citas.service.ReglasAgendaService;
+import com.hospital.citas.service.reglas.SolicitudCita;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ValidationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Service
+public class ListaEsperaServiceImpl implements ListaEsperaService {
+
+    // Candidatos revisados por cada horario liberado
+    private static final int MAXIMO_CANDIDATOS = 20;
+
+    private final ListaEsperaRepository listaEsperaRepository;
+    private final CitaRepository citaRepository;
+    private final DoctorRepository doctorRepository;
+    private final PacienteRepository pacienteRepository;
+    private final ReglasAgendaService reglasAgendaService;
+
+    @Autowired
+    public ListaEsperaServiceImpl(ListaEsperaRepository listaEsperaRepository,
+                                  CitaRepository citaRepository,
+                                  DoctorRepository doctorRepository,
+                                  PacienteRepository pacienteRepository,
+                                  ReglasAgendaService reglasAgendaService) {
+        this.listaEsperaRepository = listaEsperaRepository;
+        this.citaRepository = citaRepository;
+        this.doctorRepository = doctorRepository;
+        this.pacienteRepository = pacienteRepository;
+        this.reglasAgendaService = reglasAgendaService;
+    }
+
+    @Override
+    @Transactional
+    public ListaEsperaDTO registrar(ListaEsperaDTO listaEsperaDTO) {
+        if (listaEsperaDTO.getDoctorId() == null && listaEsperaDTO.getEspecialidad() == null) {
+            throw new ValidationException("Se debe indicar un doctor o una especialidad");
+        }
+        if (listaEsperaDTO.getFechaHasta().isBefore(listaEsperaDTO.getFechaDesde())
+                || listaEsperaDTO.getHoraHasta().isBefore(listaEsperaDTO.getHoraDesde())) {
+            throw new ValidationException("El rango de fechas u horas no es válido");
+        }
+
+        Paciente paciente = pacienteRepository.findById(listaEsperaDTO.getPacienteId())
+                .orElseThrow(() -> new EntityNotFoundException("Paciente no encontrado con id: " + listaEsperaDTO.getPacienteId()));
+
+        Doctor doctor = null;
+        if (listaEsperaDTO.getDoctorId() != null) {
+            doctor = doctorRepository.findById(listaEsperaDTO.getDoctorId())
+                    .orElseThrow(() -> new EntityNotFoundException("Doctor no encontrado con id: " + listaEsperaDTO.getDoctorId()));
+        }
+
+        ListaEspera registro = new ListaEspera();
+        registro.setPaciente(paciente);
+        registro.setDoctor(doctor);
+        registro.setEspecialidad(doctor != null ? doctor.getEspecialidad() : listaEsperaDTO.getEspecialidad());
+        registro.setFechaDesde(listaEsperaDTO.getFechaDesde());
+        registro.setFechaHasta(listaEsperaDTO.getFechaHasta());
+        registro.setHoraDesde(listaEsperaDTO.getHoraDesde());
+        registro.setHoraHasta(listaEsperaDTO.getHoraHasta());
+        registro.setFechaRegistro(LocalDateTime.now());
+        registro.setActiva(true);
+
+        return mapearListaEsperaADTO(listaEsperaRepository.save(registro));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ListaEsperaDTO> obtenerActivos() {
+        return listaEsperaRepository.findByActivaTrueOrderByFechaRegistro().stream()
+                .map(this::mapearListaEsperaADTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public void cancelarRegistro(Long id) {
+        ListaEspera registro = listaEsperaRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Registro de lista de espera no encontrado con id: " + id));
+        registro.setActiva(false);
+        listaEsperaRepository.save(registro);
+    }
+
+    // Ofrece el horario de una cita recién cancelada al primer paciente en espera que lo acepte.
+    // El paciente en espera recibe una cita nueva y la cancelada se conserva como está, con su
+    // paciente original; las restricciones de unicidad por horario solo aplican a citas activas.
+    @Override
+    @Transactional
+    public Optional<ListaEsperaDTO> asignarHorarioLiberado(Cita citaCancelada) {
+        LocalDateTime horario = citaCancelada.getHorarioConsulta();
+        List<ListaEspera> candidatos = listaEsperaRepository.findCandidatos(
+                citaCancelada.getDoctor().getId(),
+                citaCancelada.getDoctor().getEspecialidad(),
+                horario.toLocalDate(),
+                horario.toLocalTime(),
+                citaCancelada.getPaciente().getId(),
+                PageRequest.of(0, MAXIMO_CANDIDATOS));
+
+        for (ListaEspera candidato : candidatos) {
+            // Mismas reglas que al crear una cita, para el paciente en espera en este horario
+            boolean cumpleReglas = reglasAgendaService.evaluar(new SolicitudCita(
+                    candidato.getPaciente().getId(),
+                    citaCancelada.getDoctor().getId(),
+                    citaCancelada.getDoctor().getEspecialidad(),
+                    citaCancelada.getConsultorio().getId(),
+                    horario)).isEmpty();
+            if (!cumpleReglas) {
+                continue;
+            }
+
+            Cita nuevaCita = new Cita();
+            nuevaCita.setDoctor(citaCancelada.getDoctor());
+            nuevaCita.setConsultorio(citaCancelada.getConsultorio());
+            nuevaCita.setPaciente(candidato.getPaciente());
+            nuevaCita.setHorarioConsulta(horario);
+            nuevaCita.setActiva(true);
+            nuevaCita.setSede(citaCancelada.getSede());
+            citaRepository.save(nuevaCita);
+
+            candidato.setActiva(false);
+            candidato.setCita(nuevaCita);
+            return Optional.of(mapearListaEsperaADTO(listaEsperaRepository.save(candidato)));
+        }
+        return Optional.empty();
+    }
+
+    // Método auxiliar para convertir entidad a DTO
+    private ListaEsperaDTO mapearListaEsperaADTO(ListaEspera registro) {
+        ListaEsperaDTO dto = new ListaEsperaDTO();
+        dto.setId(registro.getId());
+        dto.setPacienteId(registro.getPaciente().getId());
+        dto.setDoctorId(registro.getDoctor() != null ? registro.getDoctor().getId() : null);
+        dto.setEspecialidad(registro.getEspecialidad());
+        dto.setFechaDesde(registro.getFechaDesde());
+        dto.setFechaHasta(registro.getFechaHasta());
+        dto.setHoraDesde(registro.getHoraDesde());
+        dto.setHoraHasta(registro.getHoraHasta());
+        dto.setFechaRegistro(registro.getFechaRegistro());
+        dto.setActiva(registro.isActiva());
+        dto.setCitaId(registro.getCita() != null ? registro.getCita().getId() : null);
+        return dto;
+    }
+}
@@ -0,0 +1,360 @@
+package com.hospital.citas.service.impl;
+
+import com.hospital.citas.config.ContextoSede;
+import com.hospital.citas.config.Sedes;
+import com.hospital.citas.dto.OcupacionDTO;
+import com.hospital.citas.model.Cita;
+import com.hospital.citas.model.EventoCambio;
+import com.hospital.citas.repository.CitaRepository;
+import com.hospital.citas.repository.ConsultorioPiso;
+import com.hospital.citas.repository.ConsultorioRepository;
+import com.hospital.citas.repository.ConteoOcupacion;
+import com.hospital.citas.repository.DoctorRepository;
+import com.hospital.citas.service.OcupacionService;
+import com.hospital.citas.service.ReceptorCambios;
+import com.hospital.citas.service.ReglasAgendaService;
+import com.hospital.citas.service.reglas.LimitesAgenda;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+// Contadores en memoria de citas activas por doctor, consultorio y piso para cada día de una
+// ventana alrededor de hoy. Se actualizan de forma incremental al crear, reprogramar y cancelar
+// citas, y se reconstruyen desde la base de datos al iniciar y periódicamente como reparación.
+// Los días fuera de la ventana se cuentan en la base cuando se piden.
+@Service
+public class OcupacionServiceImpl implements OcupacionService, ReceptorCambios {
+
+    private static final Logger log = LoggerFactory.getLogger(OcupacionServiceImpl.class);
+
+    private record Clave(Dimension dimension, Long id) {
+    }
+
+    // Días, ambos incluidos, cuyos contadores están en memoria
+    private record Ventana(LocalDate desde, LocalDate hasta) {
+
+        boolean contiene(LocalDate fecha) {
+            return !fecha.isBefore(desde) && !fecha.isAfter(hasta);
+        }
+    }
+
+    // Contadores de una sede por día, para poder reemplazar un día completo de forma atómica,
+    // con la ventana cargada y los consultorios de cada piso, que dan la capacidad del piso
+    private static final class Contadores {
+        final Map<LocalDate, Map<Clave, AtomicInteger>> dias = new ConcurrentHashMap<>();
+        volatile Ventana ventana;
+        volatile Map<Integer, List<Long>> consultoriosPorPiso;
+
+        boolean cargado(LocalDate fecha) {
+            Ventana actual = ventana;
+            return actual != null && actual.contiene(fecha);
+        }
+    }
+
+    private final CitaRepository citaRepository;
+    private final ConsultorioRepository consultorioRepository;
+    private final DoctorRepository doctorRepository;
+    private final ReglasAgendaService reglasAgendaService;
+    private final Sedes sedes;
+    private final int diasPasados;
+    private final int diasFuturos;
+
+    // Por sede, porque los ids solo son únicos dentro de la base de cada una
+    private final Map<String, Contadores> contadoresPorSede = new ConcurrentHashMap<>();
+
+    // Los recálculos completos que piden los cambios de consultorios se hacen en su propio hilo,
+    // para no detener el sondeo del outbox, y se agrupan: mientras una sede espera su recálculo,
+    // los cambios siguientes de esa sede no encolan otro
+    private final ExecutorService recalculos = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "ocupacion-recalculo");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    private final Set<String> recalculosPendientes = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public OcupacionServiceImpl(CitaRepository citaRepository,
+                                ConsultorioRepository consultorioRepository,
+                                DoctorRepository doctorRepository,
+                                ReglasAgendaService reglasAgendaService,
+                                Sedes sedes,
+                                @Value("${hospital.ocupacion.dias-pasados:90}") int diasPasados,
+                                @Value("${hospital.ocupacion.dias-futuros:180}") int diasFuturos) {
+        this.citaRepository = citaRepository;
+        this.consultorioRepository = consultorioRepository;
+        this.doctorRepository = doctorRepository;
+        this.reglasAgendaService = reglasAgendaService;
+        this.sedes = sedes;
+        this.diasPasados = diasPasados;
+        this.diasFuturos = diasFuturos;
+    }
+
+    @Override
+    public void registrarCita(Cita cita) {
+        aplicarAlConfirmar(cita, 1);
+    }
+
+    @Override
+    public void retirarCita(Cita cita) {
+        aplicarAlConfirmar(cita, -1);
+    }
+
+    @Override
+    public OcupacionDTO obtenerOcupacion(Dimension dimension, Long id, LocalDate desde, LocalDate hasta) {
+        Contadores actuales = contadores(claveSede(sedes.actual()));
+        Map<LocalDate, Map<Clave, AtomicInteger>> fueraDeVentana = contarFueraDeVentana(actuales.ventana, desde, hasta);
+        Clave clave = new Clave(dimension, id);
+        Map<LocalDate, Integer> citasPorDia = new LinkedHashMap<>();
+        int total = 0;
+        for (LocalDate fecha = desde; !fecha.isAfter(hasta); fecha = fecha.plusDays(1)) {
+            Map<Clave, AtomicInteger> dia = fueraDeVentana.containsKey(fecha)
+                    ? fueraDeVentana.get(fecha) : actuales.dias.get(fecha);
+            AtomicInteger contador = dia != null ? dia.get(clave) : null;
+            int citas = contador != null ? Math.max(contador.get(), 0) : 0;
+            citasPorDia.put(fecha, citas);
+            total += citas;
+        }
+
+        int dias = (int) ChronoUnit.DAYS.between(desde, hasta) + 1;
+        int capacidad = dias * capacidadDiaria(actuales, dimension, id);
+        double utilizacion = capacidad > 0 ? (double) total / capacidad : 0;
+        return new OcupacionDTO(dimension.name(), id, desde, hasta, citasPorDia, total, capacidad, utilizacion);
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${hospital.ocupacion.recalculo-cron:0 0 3 * * *}")
+    public void recalcular() {
+        List<Integer> grupos = sedes.enCadaSede(this::recalcularSede);
+        log.info("Ocupación recalculada a partir de {} grupos de citas",
+                grupos.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    // Se ejecuta con la sede en el contexto, para que las consultas vayan a su base. Se reemplaza
+    // día por día: un cambio confirmado mientras se cuenta un día solo puede perderse en ese día,
+    // y no en toda la ventana como al reemplazarla completa tras una consulta larga. Los días
+    // nuevos pasan a la ventana en cuanto tienen su conteo; hasta entonces se leen de la base
+    private int recalcularSede(String sede) {
+        Contadores contadores = contadores(claveSede(sede));
+        contadores.consultoriosPorPiso = null;
+        LocalDate hoy = LocalDate.now();
+        LocalDate desde = hoy.minusDays(diasPasados);
+        LocalDate hasta = hoy.plusDays(diasFuturos);
+
+        Ventana anterior = contadores.ventana;
+        if (anterior != null && anterior.hasta().isBefore(desde)) {
+            // Sin días en común con la nueva ventana: se carga desde cero
+            contadores.ventana = null;
+        }
+
+        int grupos = 0;
+        for (LocalDate fecha = desde; !fecha.isAfter(hasta); fecha = fecha.plusDays(1)) {
+            grupos += reemplazarDia(contadores, fecha);
+            Ventana actual = contadores.ventana;
+            if (actual == null) {
+                contadores.ventana = new Ventana(fecha, fecha);
+            } else if (fecha.isAfter(actual.hasta())) {
+                contadores.ventana = new Ventana(actual.desde(), fecha);
+            }
+        }
+        contadores.ventana = new Ventana(desde, hasta);
+        contadores.dias.keySet().removeIf(fecha -> fecha.isBefore(desde) || fecha.isAfter(hasta));
+        return grupos;
+    }
+
+    @Override
+    public void recalcularFecha(LocalDate fecha) {
+        Contadores contadores = contadores(claveSede(sedes.actual()));
+        if (contadores.cargado(fecha)) {
+            reemplazarDia(contadores, fecha);
+        }
+    }
+
+    // Cambios hechos por otras instancias, que llegan con su sede en el contexto: una cita
+    // invalida su día y un consultorio (que puede haber cambiado de piso) todos los de la sede
+    @Override
+    public void aplicarCambio(EventoCambio evento) {
+        if (evento.getEntidad() == EventoCambio.Entidad.CITA && evento.getFecha() != null) {
+            recalcularFecha(evento.getFecha());
+        } else if (evento.getEntidad() == EventoCambio.Entidad.CONSULTORIO) {
+            programarRecalculo(sedes.actual());
+        }
+    }
+
+    // Los cambios de consultorios de esta instancia no llegan por el outbox
+    @Override
+    public void consultoriosModificados() {
+        String sede = sedes.actual();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    programarRecalculo(sede);
+                }
+            });
+        } else {
+            programarRecalculo(sede);
+        }
+    }
+
+    private void programarRecalculo(String sede) {
+        // La capacidad por piso deja de usarse de inmediato, sin esperar al recálculo
+        contadores(claveSede(sede)).consultoriosPorPiso = null;
+        if (!recalculosPendientes.add(claveSede(sede))) {
+            return;
+        }
+        recalculos.execute(() -> {
+            // Se retira antes de leer, para que un cambio posterior vuelva a programarlo
+            recalculosPendientes.remove(claveSede(sede));
+            try {
+                ContextoSede.ejecutarEn(sede, () -> recalcularSede(sede));
+            } catch (RuntimeException e) {
+                log.warn("No se pudo recalcular la ocupación de la sede {}", sede, e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void detener() {
+        recalculos.shutdownNow();
+    }
+
+    private int reemplazarDia(Contadores contadores, LocalDate fecha) {
+        Map<LocalDate, Map<Clave, AtomicInteger>> nuevos = new ConcurrentHashMap<>();
+        List<ConteoOcupacion> conteos = citaRepository.contarOcupacionEntre(
+                fecha.atStartOfDay(), fecha.plusDays(1).atStartOfDay());
+        acumular(nuevos, conteos);
+        Map<Clave, AtomicInteger> dia = nuevos.get(fecha);
+        if (dia != null) {
+            contadores.dias.put(fecha, dia);
+        } else {
+            contadores.dias.remove(fecha);
+        }
+        return conteos.size();
+    }
+
+    // Los días del rango fuera de la ventana se cuentan con una consulta por cada lado de ella;
+    // todos esos días quedan en el resultado, aunque no tengan citas
+    private Map<LocalDate, Map<Clave, AtomicInteger>> contarFueraDeVentana(Ventana ventana, LocalDate desde,
+                                                                         LocalDate hasta) {
+        Map<LocalDate, Map<Clave, AtomicInteger>> dias = new LinkedHashMap<>();
+        if (ventana == null) {
+            contarEntre(dias, desde, hasta);
+            return dias;
+        }
+        if (desde.isBefore(ventana.desde())) {
+            contarEntre(dias, desde, hasta.isBefore(ventana.desde()) ? hasta : ventana.desde().minusDays(1));
+        }
+        if (hasta.isAfter(ventana.hasta())) {
+            contarEntre(dias, desde.isAfter(ventana.hasta()) ? desde : ventana.hasta().plusDays(1), hasta);
+        }
+        return dias;
+    }
+
+    private void contarEntre(Map<LocalDate, Map<Clave, AtomicInteger>> dias, LocalDate desde, LocalDate hasta) {
+        for (LocalDate fecha = desde; !fecha.isAfter(hasta); fecha = fecha.plusDays(1)) {
+            dias.put(fecha, new ConcurrentHashMap<>());
+        }
+        acumular(dias, citaRepository.contarOcupacionEntre(desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay()));
+    }
+
+    // Los contadores solo cambian si la transacción que modificó la cita se confirma. Los días
+    // fuera de la ventana no se guardan: se cuentan en la base cuando se piden
+    private void aplicarAlConfirmar(Cita cita, int delta) {
+        LocalDate fecha = cita.getHorarioConsulta().toLocalDate();
+        Long doctorId = cita.getDoctor().getId();
+        Long consultorioId = cita.getConsultorio().getId();
+        Long piso = cita.getConsultorio().getPiso().longValue();
+        Contadores contadores = contadores(claveSede(sedes.actual()));
+
+        Runnable aplicar = () -> {
+            if (!contadores.cargado(fecha)) {
+                return;
+            }
+            Map<Clave, AtomicInteger> dia = contadores.dias.computeIfAbsent(fecha, f -> new ConcurrentHashMap<>());
+            sumar(dia, new Clave(Dimension.DOCTOR, doctorId), delta);
+            sumar(dia, new Clave(Dimension.CONSULTORIO, consultorioId), delta);
+            sumar(dia, new Clave(Dimension.PISO, piso), delta);
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    aplicar.run();
+                }
+            });
+        } else {
+            aplicar.run();
+        }
+    }
+
+    private Contadores contadores(String sede) {
+        return contadoresPorSede.computeIfAbsent(sede, s -> new Contadores());
+    }
+
+    // ConcurrentHashMap no admite claves null, que es la sede cuando están deshabilitadas
+    private static String claveSede(String sede) {
+        return sede != null ? sede : "";
+    }
+
+    // Capacidad según las reglas activas de la sede: máximo de citas del doctor y horas que
+    // atiende cada consultorio. La especialidad del doctor solo se lee si alguna regla la usa
+    private int capacidadDiaria(Contadores contadores, Dimension dimension, Long id) {
+        LimitesAgenda limites = reglasAgendaService.obtenerLimites();
+        return switch (dimension) {
+            case DOCTOR -> limites.maximoCitasDoctor(id, limites.dependeDeEspecialidad()
+                    ? doctorRepository.findEspecialidadById(id).orElse(null) : null);
+            case CONSULTORIO -> limites.horasConsultorio(id);
+            case PISO -> consultoriosPorPiso(contadores).getOrDefault(id.intValue(), List.of()).stream()
+                    .mapToInt(limites::horasConsultorio)
+                    .sum();
+        };
+    }
+
+    // Se carga con la primera consulta de un piso y se descarta al cambiar algún consultorio
+    private Map<Integer, List<Long>> consultoriosPorPiso(Contadores contadores) {
+        Map<Integer, List<Long>> porPiso = contadores.consultoriosPorPiso;
+        if (porPiso == null) {
+            porPiso = Map.copyOf(consultorioRepository.findPisos().stream()
+                    .collect(Collectors.groupingBy(ConsultorioPiso::getPiso,
+                            Collectors.mapping(ConsultorioPiso::getId, Collectors.toUnmodifiableList()))));
+            contadores.consultoriosPorPiso = porPiso;
+        }
+        return porPiso;
+    }
+
+    private static void acumular(Map<LocalDate, Map<Clave, AtomicInteger>> contadores, List<ConteoOcupacion> conteos) {
+        for (ConteoOcupacion conteo : conteos) {
+            Map<Clave, AtomicInteger> dia = contadores.computeIfAbsent(conteo.getFecha(), f -> new ConcurrentHashMap<>());
+            int total = conteo.getTotal().intValue();
+            sumar(dia, new Clave(Dimension.DOCTOR, conteo.getDoctorId()), total);
+            sumar(dia, new Clave(Dimension.CONSULTORIO, conteo.getConsultorioId()), total);
+            sumar(dia, new Clave(Dimension.PISO, conteo.getPiso().longValue()), total);
+        }
+    }
+
+    private static void sumar(Map<Clave, AtomicInteger> contadores, Clave clave, int delta) {
+        contadores.computeIfAbsent(clave, c -> new AtomicInteger()).addAndGet(delta);
+    }
+}
@@ -0,0 +1,225 @@
+package com.hospital.citas.service.impl;
+
+import com.hospital.citas.dto.MovimientoConsultorioDTO;
+import com.hospital.citas.dto.PropuestaConsultoriosDTO;
+import com.hospital.citas.model.Cita;
+import com.hospital.citas.model.Consultorio;
+import com.hospital.citas.model.Doctor;
+import com.hospital.citas.model.EventoCambio;
+import com.hospital.citas.repository.AsignacionCita;
+import com.hospital.citas.repository.CitaRepository;
+import com.hospital.citas.repository.ConsultorioRepository;
+import com.hospital.citas.service.CambiosService;
+import com.hospital.citas.service.OcupacionService;
+import com.hospital.citas.service.OptimizacionConsultoriosService;
+import com.hospital.citas.service.ReglasAgendaService;
+import com.hospital.citas.service.reglas.LimitesAgenda;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ValidationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class OptimizacionConsultoriosServiceImpl implements OptimizacionConsultoriosService {
+
+    private static final int MAXIMO_DIAS_OPTIMIZACION = 31;
+
+    private record Calculo(PropuestaConsultoriosDTO propuesta,
+                           Map<LocalDateTime, Set<Long>> ocupados,
+                           Map<Long, Consultorio> consultorios,
+                           LocalDateTime ahora) {
+    }
+
+    private final CitaRepository citaRepository;
+    private final ConsultorioRepository consultorioRepository;
+    private final OcupacionService ocupacionService;
+    private final CambiosService cambiosService;
+    private final ReglasAgendaService reglasAgendaService;
+    private final ForkJoinPool optimizadores;
+    private final long tiempoMaximoMs;
+
+    @Autowired
+    public OptimizacionConsultoriosServiceImpl(CitaRepository citaRepository,
+                                               ConsultorioRepository consultorioRepository,
+                                               OcupacionService ocupacionService,
+                                               CambiosService cambiosService,
+                                               ReglasAgendaService reglasAgendaService,
+                                               @Value("${hospital.optimizacion.paralelismo:0}") int paralelismo,
+                                               @Value("${hospital.optimizacion.tiempo-maximo-ms:5000}") long tiempoMaximoMs) {
+        this.citaRepository = citaRepository;
+        this.consultorioRepository = consultorioRepository;
+        this.ocupacionService = ocupacionService;
+        this.cambiosService = cambiosService;
+        this.reglasAgendaService = reglasAgendaService;
+        this.optimizadores = new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors());
+        this.tiempoMaximoMs = tiempoMaximoMs;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PropuestaConsultoriosDTO proponer(LocalDate desde, LocalDate hasta) {
+        return calcular(desde, hasta).propuesta();
+    }
+
+    // Los movimientos se aplican uno por uno con una actualización condicional: si alguna cita
+    // cambió desde que se leyó, se revierte todo y se responde con conflicto
+    @Override
+    @Transactional
+    public PropuestaConsultoriosDTO aplicar(LocalDate desde, LocalDate hasta) {
+        Calculo calculo = calcular(desde, hasta);
+        PropuestaConsultoriosDTO propuesta = calculo.propuesta();
+
+        Map<LocalDateTime, List<MovimientoConsultorioDTO>> porHorario = propuesta.getMovimientos().stream()
+                .collect(Collectors.groupingBy(MovimientoConsultorioDTO::getHorarioConsulta, TreeMap::new, Collectors.toList()));
+        porHorario.forEach((horario, movimientos) ->
+                aplicarEnHorario(movimientos, calculo.ocupados().get(horario), calculo.consultorios(), calculo.ahora()));
+
+        for (MovimientoConsultorioDTO movimiento : propuesta.getMovimientos()) {
+            ocupacionService.retirarCita(citaEn(movimiento, calculo.consultorios().get(movimiento.getConsultorioAnteriorId())));
+            ocupacionService.registrarCita(citaEn(movimiento, calculo.consultorios().get(movimiento.getConsultorioNuevoId())));
+        }
+        porHorario.keySet().stream()
+                .map(LocalDateTime::toLocalDate)
+                .collect(Collectors.toCollection(TreeSet::new))
+                .forEach(fecha -> cambiosService.registrarCambio(EventoCambio.Entidad.CITA, null, fecha));
+
+        propuesta.setAplicada(true);
+        return propuesta;
+    }
+
+    @PreDestroy
+    public void detener() {
+        optimizadores.shutdown();
+    }
+
+    private Calculo calcular(LocalDate desde, LocalDate hasta) {
+        if (hasta.isBefore(desde)) {
+            throw new ValidationException("La fecha final no puede ser anterior a la inicial");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) >= MAXIMO_DIAS_OPTIMIZACION) {
+            throw new ValidationException("El rango no puede ser mayor a " + MAXIMO_DIAS_OPTIMIZACION + " días");
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        Map<Long, Consultorio> consultorios = consultorioRepository.findAll().stream()
+                .collect(Collectors.toMap(Consultorio::getId, Function.identity()));
+        Map<Long, Integer> pisos = consultorios.values().stream()
+                .collect(Collectors.toMap(Consultorio::getId, Consultorio::getPiso));
+        List<AsignacionCita> filas = citaRepository.findAsignacionesEntre(desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay());
+
+        Map<LocalDateTime, Set<Long>> ocupados = new HashMap<>();
+        filas.forEach(fila -> ocupados.computeIfAbsent(fila.getHorarioConsulta(), h -> new HashSet<>()).add(fila.getConsultorioId()));
+
+        // Los límites se leen aquí, con la sede en el contexto; los hilos del pool no la tienen
+        LimitesAgenda limites = reglasAgendaService.obtenerLimites();
+
+        // Un optimizador por día, todos en paralelo y con el mismo tiempo límite
+        long limiteNanos = System.nanoTime() + tiempoMaximoMs * 1_000_000L;
+        List<OptimizadorConsultoriosDia> dias = filas.stream()
+                .collect(Collectors.groupingBy(fila -> fila.getHorarioConsulta().toLocalDate(), TreeMap::new, Collectors.toList()))
+                .values().stream()
+                .map(filasDia -> new OptimizadorConsultoriosDia(filasDia, pisos, limites::atiende, ahora, limiteNanos))
+                .collect(Collectors.toList());
+        dias.stream()
+                .map(dia -> optimizadores.submit(dia::optimizar))
+                .collect(Collectors.toList())
+                .forEach(ForkJoinTask::join);
+
+        List<MovimientoConsultorioDTO> movimientos = new ArrayList<>();
+        PropuestaConsultoriosDTO propuesta = new PropuestaConsultoriosDTO();
+        propuesta.setDesde(desde);
+        propuesta.setHasta(hasta);
+        propuesta.setCompleta(true);
+        for (OptimizadorConsultoriosDia dia : dias) {
+            propuesta.setCambiosConsultorioAntes(propuesta.getCambiosConsultorioAntes() + dia.cambiosConsultorio(true));
+            propuesta.setCambiosConsultorioDespues(propuesta.getCambiosConsultorioDespues() + dia.cambiosConsultorio(false));
+            propuesta.setPisosRecorridosAntes(propuesta.getPisosRecorridosAntes() + dia.pisosRecorridos(true));
+            propuesta.setPisosRecorridosDespues(propuesta.getPisosRecorridosDespues() + dia.pisosRecorridos(false));
+            propuesta.setCompleta(propuesta.isCompleta() && dia.isCompleta());
+            dia.getMovimientos().forEach(asignacion -> movimientos.add(new MovimientoConsultorioDTO(
+                    asignacion.citaId,
+                    asignacion.doctorId,
+                    asignacion.horario,
+                    asignacion.consultorioOriginal,
+                    asignacion.consultorio)));
+        }
+        movimientos.sort(Comparator.comparing(MovimientoConsultorioDTO::getHorarioConsulta)
+                .thenComparing(MovimientoConsultorioDTO::getCitaId));
+        propuesta.setMovimientos(movimientos);
+        return new Calculo(propuesta, ocupados, consultorios, ahora);
+    }
+
+    // UK_consultorio_horario se comprueba fila por fila, así que primero se mueven las citas
+    // cuyo destino ya está libre; lo que queda son ciclos (por ejemplo dos citas que intercambian
+    // consultorio), que se rompen pasando una cita por un consultorio libre del mismo horario
+    private void aplicarEnHorario(List<MovimientoConsultorioDTO> movimientos, Set<Long> ocupados,
+                                  Map<Long, Consultorio> consultorios, LocalDateTime ahora) {
+        List<MovimientoConsultorioDTO> pendientes = new ArrayList<>(movimientos);
+        Map<Long, Long> actuales = new HashMap<>();
+        pendientes.forEach(movimiento -> actuales.put(movimiento.getCitaId(), movimiento.getConsultorioAnteriorId()));
+
+        while (!pendientes.isEmpty()) {
+            boolean avanzo = false;
+            for (Iterator<MovimientoConsultorioDTO> it = pendientes.iterator(); it.hasNext(); ) {
+                MovimientoConsultorioDTO movimiento = it.next();
+                if (!ocupados.contains(movimiento.getConsultorioNuevoId())) {
+                    mover(movimiento.getCitaId(), actuales, movimiento.getConsultorioNuevoId(), ocupados, consultorios, ahora);
+                    it.remove();
+                    avanzo = true;
+                }
+            }
+            if (!avanzo) {
+                // El optimizador no mueve citas en horarios sin consultorios libres
+                Long libre = consultorios.keySet().stream()
+                        .filter(id -> !ocupados.contains(id))
+                        .min(Comparator.naturalOrder())
+                        .orElseThrow(() -> new ObjectOptimisticLockingFailureException(Cita.class, pendientes.get(0).getCitaId()));
+                mover(pendientes.get(0).getCitaId(), actuales, libre, ocupados, consultorios, ahora);
+            }
+        }
+    }
+
+    private void mover(Long citaId, Map<Long, Long> actuales, Long destino, Set<Long> ocupados,
+                       Map<Long, Consultorio> consultorios, LocalDateTime ahora) {
+        Long origen = actuales.get(citaId);
+        int actualizadas = citaRepository.moverConsultorio(citaId, consultorios.get(origen), consultorios.get(destino), ahora);
+        if (actualizadas == 0) {
+            throw new ObjectOptimisticLockingFailureException(Cita.class, citaId);
+        }
+        ocupados.remove(origen);
+        ocupados.add(destino);
+        actuales.put(citaId, destino);
+    }
+
+    // Cita sin persistir con lo que necesitan los contadores de ocupación
+    private Cita citaEn(MovimientoConsultorioDTO movimiento, Consultorio consultorio) {
+        Doctor doctor = new Doctor();
+        doctor.setId(movimiento.getDoctorId());
+        Cita cita = new Cita();
+        cita.setDoctor(doctor);
+        cita.setConsultorio(consultorio);
+        cita.setHorarioConsulta(movimiento.getHorarioConsulta());
+        return cita;
+    }
+}
@@ -0,0 +1,321 @@
+package com.hospital.citas.service.impl;
+
+import com.hospital.citas.repository.AsignacionCita;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.stream.Collectors;
+
+// Reasignación de consultorios de un día. Cada doctor paga un costo por cambiar de consultorio
+// y por cada piso recorrido entre citas consecutivas, más un costo mínimo por cada cita movida
+// para no proponer movimientos que no mejoran nada. Primero se intenta dar a cada doctor un
+// consultorio fijo y después se mejora con movimientos e intercambios hasta que ninguno reduce
+// el costo o se agota el tiempo. Los días son independientes porque las restricciones de
+// unicidad son por horario, así que cada día se optimiza en su propio hilo. Una cita solo se
+// mueve a un consultorio que atiende a esa hora según las reglas de horario de la sede.
+final class OptimizadorConsultoriosDia {
+
+    private static final int COSTO_CAMBIO_CONSULTORIO = 10;
+    private static final int COSTO_POR_PISO = 20;
+    private static final int COSTO_MOVER_CITA = 1;
+
+    static final class Asignacion {
+        final Long citaId;
+        final Long doctorId;
+        final LocalDateTime horario;
+        final Long consultorioOriginal;
+        final boolean activa;
+        boolean movible;
+        Long consultorio;
+        // Citas activas anterior y siguiente del mismo doctor en el día
+        Asignacion anterior;
+        Asignacion siguiente;
+
+        private Asignacion(AsignacionCita fila, boolean movible) {
+            this.citaId = fila.getId();
+            this.doctorId = fila.getDoctorId();
+            this.horario = fila.getHorarioConsulta();
+            this.consultorioOriginal = fila.getConsultorioId();
+            this.activa = Boolean.TRUE.equals(fila.getActiva());
+            this.movible = movible;
+            this.consultorio = consultorioOriginal;
+        }
+    }
+
+    private final List<Long> consultorios;
+    private final Map<Long, Integer> pisos;
+    private final BiPredicate<Long, LocalTime> atiende;
+    private final long limiteNanos;
+    private final List<Asignacion> movibles = new ArrayList<>();
+    private final Map<Long, List<Asignacion>> agendasPorDoctor = new HashMap<>();
+    // Consultorio ocupado en cada horario, incluidas las citas pasadas que no se mueven
+    private final Map<LocalDateTime, Map<Long, Asignacion>> ocupacion = new HashMap<>();
+    private boolean completa = true;
+
+    OptimizadorConsultoriosDia(List<AsignacionCita> filas, Map<Long, Integer> pisos,
+                               BiPredicate<Long, LocalTime> atiende, LocalDateTime ahora, long limiteNanos) {
+        this.pisos = pisos;
+        this.atiende = atiende;
+        this.consultorios = pisos.keySet().stream().sorted().collect(Collectors.toList());
+        this.limiteNanos = limiteNanos;
+
+        for (AsignacionCita fila : filas) {
+            boolean movible = Boolean.TRUE.equals(fila.getActiva()) && fila.getHorarioConsulta().isAfter(ahora);
+            Asignacion asignacion = new Asignacion(fila, movible);
+            ocupacion.computeIfAbsent(asignacion.horario, h -> new HashMap<>()).put(asignacion.consultorio, asignacion);
+            if (asignacion.activa) {
+                agendasPorDoctor.computeIfAbsent(asignacion.doctorId, d -> new ArrayList<>()).add(asignacion);
+            }
+        }
+
+        // En un horario sin consultorios libres cualquier cambio sería una permutación que no se
+        // puede aplicar fila por fila sin violar UK_consultorio_horario, así que esas citas se quedan
+        for (Map<Long, Asignacion> enHorario : ocupacion.values()) {
+            if (enHorario.size() >= consultorios.size()) {
+                enHorario.values().forEach(asignacion -> asignacion.movible = false);
+            }
+        }
+
+        for (List<Asignacion> agenda : agendasPorDoctor.values()) {
+            agenda.sort(Comparator.comparing(asignacion -> asignacion.horario));
+            for (int i = 1; i < agenda.size(); i++) {
+                agenda.get(i - 1).siguiente = agenda.get(i);
+                agenda.get(i).anterior = agenda.get(i - 1);
+            }
+            agenda.stream().filter(asignacion -> asignacion.movible).forEach(movibles::add);
+        }
+        movibles.sort(Comparator.comparing((Asignacion asignacion) -> asignacion.horario)
+                .thenComparing(asignacion -> asignacion.citaId));
+    }
+
+    void optimizar() {
+        if (movibles.isEmpty()) {
+            return;
+        }
+        asignacionInicial();
+        busquedaLocal();
+    }
+
+    boolean isCompleta() {
+        return completa;
+    }
+
+    List<Asignacion> getMovimientos() {
+        return movibles.stream()
+                .filter(asignacion -> !asignacion.consultorio.equals(asignacion.consultorioOriginal))
+                .collect(Collectors.toList());
+    }
+
+    int cambiosConsultorio(boolean original) {
+        int cambios = 0;
+        for (List<Asignacion> agenda : agendasPorDoctor.values()) {
+            for (int i = 1; i < agenda.size(); i++) {
+                if (!consultorio(agenda.get(i - 1), original).equals(consultorio(agenda.get(i), original))) {
+                    cambios++;
+                }
+            }
+        }
+        return cambios;
+    }
+
+    int pisosRecorridos(boolean original) {
+        int pisosRecorridos = 0;
+        for (List<Asignacion> agenda : agendasPorDoctor.values()) {
+            for (int i = 1; i < agenda.size(); i++) {
+                pisosRecorridos += Math.abs(pisos.get(consultorio(agenda.get(i - 1), original))
+                        - pisos.get(consultorio(agenda.get(i), original)));
+            }
+        }
+        return pisosRecorridos;
+    }
+
+    // Cada doctor, empezando por los que tienen más citas, recibe el consultorio libre en más
+    // de sus horarios; donde no está libre se usa el más cercano. Si el resultado es peor que
+    // la asignación original, o si alguna cita se quedó sin consultorio que la admita, se
+    // conserva la original como punto de partida.
+    private void asignacionInicial() {
+        int costoOriginal = costoTotal();
+        movibles.forEach(this::liberar);
+
+        Map<Long, List<Asignacion>> movilesPorDoctor = movibles.stream()
+                .collect(Collectors.groupingBy(asignacion -> asignacion.doctorId));
+        List<Long> doctores = new ArrayList<>(movilesPorDoctor.keySet());
+        doctores.sort(Comparator.comparing((Long doctorId) -> -movilesPorDoctor.get(doctorId).size())
+                .thenComparing(doctorId -> doctorId));
+
+        boolean sinDestino = false;
+        for (Long doctorId : doctores) {
+            List<Asignacion> propias = movilesPorDoctor.get(doctorId);
+            Long casa = elegirConsultorioFijo(doctorId, propias);
+            for (Asignacion asignacion : propias) {
+                Long destino = disponible(asignacion, casa) ? casa : consultorioLibreMasCercano(asignacion, casa);
+                if (destino == null) {
+                    sinDestino = true;
+                    break;
+                }
+                ocupar(asignacion, destino);
+            }
+            if (sinDestino) {
+                break;
+            }
+        }
+
+        if (sinDestino || costoTotal() > costoOriginal) {
+            movibles.forEach(this::liberar);
+            movibles.forEach(asignacion -> ocupar(asignacion, asignacion.consultorioOriginal));
+        }
+    }
+
+    private Long elegirConsultorioFijo(Long doctorId, List<Asignacion> propias) {
+        Map<Long, Long> usos = agendasPorDoctor.get(doctorId).stream()
+                .collect(Collectors.groupingBy(asignacion -> asignacion.consultorioOriginal, Collectors.counting()));
+        Long mejor = null;
+        long mejorLibres = -1;
+        long mejorUsos = -1;
+        for (Long consultorio : consultorios) {
+            long libres = propias.stream().filter(asignacion -> disponible(asignacion, consultorio)).count();
+            long veces = usos.getOrDefault(consultorio, 0L);
+            if (libres > mejorLibres || (libres == mejorLibres && veces > mejorUsos)) {
+                mejor = consultorio;
+                mejorLibres = libres;
+                mejorUsos = veces;
+            }
+        }
+        return mejor;
+    }
+
+    // Puede no haber ninguno: los consultorios libres pueden estar cerrados a esa hora
+    private Long consultorioLibreMasCercano(Asignacion asignacion, Long casa) {
+        Long mejor = null;
+        int mejorCosto = Integer.MAX_VALUE;
+        for (Long consultorio : consultorios) {
+            if (!disponible(asignacion, consultorio)) {
+                continue;
+            }
+            int costo = costoTransicion(casa, consultorio)
+                    + (consultorio.equals(asignacion.consultorioOriginal) ? 0 : COSTO_MOVER_CITA);
+            if (costo < mejorCosto) {
+                mejor = consultorio;
+                mejorCosto = costo;
+            }
+        }
+        return mejor;
+    }
+
+    // Primera mejora por cita: se prueba cada consultorio del horario, libre o con otra cita
+    // movible con la que intercambiar, y se aplica el cambio que más reduce el costo
+    private void busquedaLocal() {
+        boolean mejoro = true;
+        while (mejoro) {
+            mejoro = false;
+            for (Asignacion asignacion : movibles) {
+                if (System.nanoTime() > limiteNanos) {
+                    completa = false;
+                    return;
+                }
+                Map<Long, Asignacion> enHorario = ocupacion.get(asignacion.horario);
+                Long actual = asignacion.consultorio;
+                int costoActual = costoLocal(asignacion, actual);
+                Long mejorDestino = null;
+                int mejorDelta = 0;
+                for (Long destino : consultorios) {
+                    if (destino.equals(actual)) {
+                        continue;
+                    }
+                    Asignacion ocupante = enHorario.get(destino);
+                    if (!admite(asignacion, destino) || (ocupante != null
+                            && (!ocupante.movible || !admite(ocupante, actual)))) {
+                        continue;
+                    }
+                    int delta = costoLocal(asignacion, destino) - costoActual;
+                    if (ocupante != null) {
+                        delta += costoLocal(ocupante, actual) - costoLocal(ocupante, destino);
+                    }
+                    if (delta < mejorDelta) {
+                        mejorDestino = destino;
+                        mejorDelta = delta;
+                    }
+                }
+                if (mejorDestino != null) {
+                    Asignacion ocupante = enHorario.get(mejorDestino);
+                    liberar(asignacion);
+                    if (ocupante != null) {
+                        liberar(ocupante);
+                        ocupar(ocupante, actual);
+                    }
+                    ocupar(asignacion, mejorDestino);
+                    mejoro = true;
+                }
+            }
+        }
+    }
+
+    private int costoTotal() {
+        int costo = 0;
+        for (List<Asignacion> agenda : agendasPorDoctor.values()) {
+            for (int i = 1; i < agenda.size(); i++) {
+                costo += costoTransicion(agenda.get(i - 1).consultorio, agenda.get(i).consultorio);
+            }
+        }
+        for (Asignacion asignacion : movibles) {
+            if (!asignacion.consultorio.equals(asignacion.consultorioOriginal)) {
+                costo += COSTO_MOVER_CITA;
+            }
+        }
+        return costo;
+    }
+
+    // Costo que depende del consultorio de esta cita: transiciones con sus vecinas y si se movió
+    private int costoLocal(Asignacion asignacion, Long consultorio) {
+        int costo = consultorio.equals(asignacion.consultorioOriginal) ? 0 : COSTO_MOVER_CITA;
+        if (asignacion.anterior != null) {
+            costo += costoTransicion(asignacion.anterior.consultorio, consultorio);
+        }
+        if (asignacion.siguiente != null) {
+            costo += costoTransicion(consultorio, asignacion.siguiente.consultorio);
+        }
+        return costo;
+    }
+
+    private int costoTransicion(Long desde, Long hacia) {
+        if (desde == null || hacia == null || desde.equals(hacia)) {
+            return 0;
+        }
+        return COSTO_CAMBIO_CONSULTORIO + COSTO_POR_PISO * Math.abs(pisos.get(desde) - pisos.get(hacia));
+    }
+
+    private Long consultorio(Asignacion asignacion, boolean original) {
+        return original ? asignacion.consultorioOriginal : asignacion.consultorio;
+    }
+
+    private boolean libre(LocalDateTime horario, Long consultorio) {
+        return !ocupacion.get(horario).containsKey(consultorio);
+    }
+
+    private boolean disponible(Asignacion asignacion, Long consultorio) {
+        return libre(asignacion.horario, consultorio) && admite(asignacion, consultorio);
+    }
+
+    // El consultorio original siempre se admite, aunque las reglas hayan cambiado después de agendar
+    private boolean admite(Asignacion asignacion, Long consultorio) {
+        return consultorio.equals(asignacion.consultorioOriginal)
+                || atiende.test(consultorio, asignacion.horario.toLocalTime());
+    }
+
+    // Mientras una cita está liberada su consultorio queda en null y no cuenta en los costos de sus vecinas
+    private void liberar(Asignacion asignacion) {
+        ocupacion.get(asignacion.horario).remove(asignacion.consultorio, asignacion);
+        asignacion.consultorio = null;
+    }
+
+    private void ocupar(Asignacion asignacion, Long consultorio) {
+        asignacion.consultorio = consultorio;
+        ocupacion.get(asignacion.horario).put(consultorio, asignacion);
+    }
+}
@@ -1,12 +1,17 @@
 package com.hospital.citas.service.impl;
 
+import com.hospital.citas.config.ContextoSede;
 import com.hospital.citas.dto.PacienteDTO;
+import com.hospital.citas.model.EventoCambio;
 import com.hospital.citas.model.Paciente;
 import com.hospital.citas.repository.PacienteRepository;
+import com.hospital.citas.service.CambiosService;
 import com.hospital.citas.service.PacienteService;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ValidationException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -15,43 +20,64 @@ import java.util.Optional;
 public class PacienteServiceImpl implements PacienteService {
 
     private final PacienteRepository pacienteRepository;
+    private final CambiosService cambiosService;
 
     @Autowired
-    public PacienteServiceImpl(PacienteRepository pacienteRepository) {
+    public PacienteServiceImpl(PacienteRepository pacienteRepository, CambiosService cambiosService) {
         this.pacienteRepository = pacienteRepository;
+        this.cambiosService = cambiosService;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Paciente> obtenerTodosLosPacientes() {
         return pacienteRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Paciente> obtenerPacientePorId(Long id) {
         return pacienteRepository.findById(id);
     }
 
     @Override
+    @Transactional
     public Paciente guardarPaciente(PacienteDTO pacienteDTO) {
+        if (pacienteDTO.getCurp() != null && pacienteRepository.existsByCurp(pacienteDTO.getCurp())) {
+            throw new ValidationException("Ya existe un paciente con la CURP " + pacienteDTO.getCurp());
+        }
         Paciente paciente = new Paciente();
         paciente.setNombre(pacienteDTO.getNombre());
         paciente.setApellidos(pacienteDTO.getApellidos());
-        return pacienteRepository.save(paciente);
+        paciente.setCurp(pacienteDTO.getCurp());
+        paciente.setSede(ContextoSede.getSede());
+        Paciente pacienteGuardado = pacienteRepository.save(paciente);
+        cambiosService.registrarCambio(EventoCambio.Entidad.PACIENTE, pacienteGuardado.getId(), null);
+        return pacienteGuardado;
     }
 
     @Override
+    @Transactional
     public Paciente actualizarPaciente(Long id, PacienteDTO pacienteDTO) {
-        return pacienteRepository.findById(id)
+        if (pacienteDTO.getCurp() != null && pacienteRepository.existsByCurpAndIdNot(pacienteDTO.getCurp(), id)) {
+            throw new ValidationException("Ya existe un paciente con la CURP " + pacienteDTO.getCurp());
+        }
+        Paciente pacienteActualizado = pacienteRepository.findById(id)
                 .map(paciente -> {
                     paciente.setNombre(pacienteDTO.getNombre());
                     paciente.setApellidos(pacienteDTO.getApellidos());
+                    paciente.setCurp(pacienteDTO.getCurp());
                     return pacienteRepository.save(paciente);
                 })
                 .orElseThrow(() -> new EntityNotFoundException("Paciente no encontrado con id: " + id));
+        cambiosService.registrarCambio(EventoCambio.Entidad.PACIENTE, id, null);
+        return pacienteActualizado;
     }
 
     @Override
+    @Transactional
     public void eliminarPaciente(Long id) {
         pacienteRepository.deleteById(id);
+        cambiosService.registrarCambio(EventoCambio.Entidad.PACIENTE, id, null);
     }
 } 
\ No newline at end of file
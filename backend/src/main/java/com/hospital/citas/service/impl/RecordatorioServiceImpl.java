@@ -0,0 +1,270 @@
+package com.hospital.citas.service.impl;
+
+import com.hospital.citas.config.ContextoSede;
+import com.hospital.citas.config.Sedes;
+import com.hospital.citas.dto.RecordatorioDTO;
+import com.hospital.citas.dto.ResultadoRecordatoriosDTO;
+import com.hospital.citas.model.Cita;
+import com.hospital.citas.model.Recordatorio;
+import com.hospital.citas.repository.CitaRepository;
+import com.hospital.citas.repository.RecordatorioRepository;
+import com.hospital.citas.service.EnviadorRecordatorios;
+import com.hospital.citas.service.RecordatorioService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Envío de recordatorios de las citas de un día: lee las citas en lotes paginados por id,
+// reparte los envíos en un grupo acotado de hilos y guarda el estado de cada entrega, de modo
+// que una ejecución interrumpida se reanuda sin repetir los recordatorios ya enviados. Cada
+// cita se reclama en la base antes de enviarla, así que varias instancias pueden ejecutar el
+// envío del mismo día sin duplicar recordatorios
+@Service
+public class RecordatorioServiceImpl implements RecordatorioService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecordatorioServiceImpl.class);
+
+    private final CitaRepository citaRepository;
+    private final RecordatorioRepository recordatorioRepository;
+    private final EnviadorRecordatorios enviador;
+    private final Sedes sedes;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate lectura;
+    private final ExecutorService envios;
+    private final int tamanoLote;
+    private final int maximoIntentos;
+    private final Duration abandono;
+    private final Counter enviados;
+    private final Counter fallidos;
+    // Solo evita dos envíos simultáneos en esta instancia; entre instancias coordinan los reclamos
+    private final AtomicBoolean enEjecucion = new AtomicBoolean();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public RecordatorioServiceImpl(CitaRepository citaRepository,
+                                   RecordatorioRepository recordatorioRepository,
+                                   EnviadorRecordatorios enviador,
+                                   Sedes sedes,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry registry,
+                                   @Value("${hospital.recordatorios.paralelismo:16}") int paralelismo,
+                                   @Value("${hospital.recordatorios.lote:500}") int tamanoLote,
+                                   @Value("${hospital.recordatorios.maximo-intentos:3}") int maximoIntentos,
+                                   @Value("${hospital.recordatorios.abandono-minutos:10}") long abandonoMinutos) {
+        this.citaRepository = citaRepository;
+        this.recordatorioRepository = recordatorioRepository;
+        this.enviador = enviador;
+        this.sedes = sedes;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.tamanoLote = tamanoLote;
+        this.maximoIntentos = maximoIntentos;
+        this.abandono = Duration.ofMinutes(abandonoMinutos);
+        this.enviados = registry.counter("hospital.recordatorios", "resultado", "enviado");
+        this.fallidos = registry.counter("hospital.recordatorios", "resultado", "fallido");
+
+        AtomicInteger hilos = new AtomicInteger();
+        this.envios = Executors.newFixedThreadPool(paralelismo, tarea -> {
+            Thread hilo = new Thread(tarea, "recordatorios-" + hilos.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    @Scheduled(cron = "${hospital.recordatorios.cron:0 0 18 * * *}")
+    public void enviarRecordatoriosDeManana() {
+        LocalDate manana = LocalDate.now().plusDays(1);
+        // La marca se toma una vez para todas las sedes: si se tomara por sede, un envío manual
+        // en curso haría fallar la primera y las demás se quedarían sin recordatorios
+        if (!enEjecucion.compareAndSet(false, true)) {
+            log.warn("Se omite el envío de recordatorios del {}: ya hay un envío en curso", manana);
+            return;
+        }
+        try {
+            // Una sede a la vez: el grupo de hilos de envío ya es el límite de paralelismo
+            for (String sede : sedes.getNombres()) {
+                ResultadoRecordatoriosDTO resultado = ContextoSede.ejecutarEn(sede, () -> enviar(manana));
+                log.info("Recordatorios del {}{}: {} enviados, {} fallidos en {} ms", resultado.getFecha(),
+                        sede != null ? " en la sede " + sede : "",
+                        resultado.getEnviados(), resultado.getFallidos(), resultado.getDuracionMs());
+            }
+        } finally {
+            enEjecucion.set(false);
+        }
+    }
+
+    @Override
+    public ResultadoRecordatoriosDTO enviarRecordatorios(LocalDate fecha) {
+        if (!enEjecucion.compareAndSet(false, true)) {
+            throw new IllegalStateException("Ya hay un envío de recordatorios en curso");
+        }
+        try {
+            return enviar(fecha);
+        } finally {
+            enEjecucion.set(false);
+        }
+    }
+
+    private ResultadoRecordatoriosDTO enviar(LocalDate fecha) {
+        long inicio = System.currentTimeMillis();
+        AtomicLong exitosos = new AtomicLong();
+        AtomicLong errores = new AtomicLong();
+        long ultimoId = 0;
+        // Los hilos de envío registran la entrega en la base de la sede que pidió el envío
+        String sede = ContextoSede.getSede();
+
+        while (true) {
+            List<RecordatorioDTO> lote = leerLote(fecha, ultimoId);
+            if (lote.isEmpty()) {
+                break;
+            }
+            ultimoId = lote.get(lote.size() - 1).getCitaId();
+
+            // Se espera a que termine el lote antes de leer el siguiente para acotar la memoria
+            List<CompletableFuture<Void>> pendientes = new ArrayList<>(lote.size());
+            for (RecordatorioDTO recordatorio : lote) {
+                pendientes.add(CompletableFuture.runAsync(() -> {
+                    Boolean exitoso = ContextoSede.ejecutarEn(sede, () -> reclamarYEntregar(recordatorio));
+                    if (Boolean.TRUE.equals(exitoso)) {
+                        exitosos.incrementAndGet();
+                    } else if (Boolean.FALSE.equals(exitoso)) {
+                        errores.incrementAndGet();
+                    }
+                }, envios));
+            }
+            CompletableFuture.allOf(pendientes.toArray(new CompletableFuture[0])).join();
+        }
+
+        return new ResultadoRecordatoriosDTO(fecha, exitosos.get(), errores.get(),
+                System.currentTimeMillis() - inicio);
+    }
+
+    @Override
+    public ResultadoRecordatoriosDTO obtenerEstado(LocalDate fecha) {
+        LocalDateTime inicio = fecha.atStartOfDay();
+        LocalDateTime fin = fecha.plusDays(1).atStartOfDay();
+        return new ResultadoRecordatoriosDTO(fecha,
+                recordatorioRepository.contarPorEstado(Recordatorio.Estado.ENVIADO, inicio, fin),
+                recordatorioRepository.contarPorEstado(Recordatorio.Estado.FALLIDO, inicio, fin),
+                0);
+    }
+
+    @PreDestroy
+    public void detener() {
+        envios.shutdown();
+    }
+
+    // Cada lote se lee en su propia transacción y se convierte a DTO antes de salir de ella. En
+    // una petición HTTP el contexto de persistencia sigue abierto (open-in-view) y se comparte
+    // entre transacciones, así que se vacía para no acumular las citas de todos los lotes
+    private List<RecordatorioDTO> leerLote(LocalDate fecha, long ultimoId) {
+        return lectura.execute(estado -> {
+            List<Cita> citas = citaRepository.findParaRecordatorio(
+                    fecha.atStartOfDay(), fecha.plusDays(1).atStartOfDay(), ultimoId,
+                    Recordatorio.Estado.ENVIADO, maximoIntentos, PageRequest.of(0, tamanoLote));
+            List<RecordatorioDTO> lote = citas.stream()
+                    .map(this::mapearCitaARecordatorioDTO)
+                    .collect(Collectors.toList());
+            entityManager.clear();
+            return lote;
+        });
+    }
+
+    // null si otra instancia ya tiene reclamada la cita
+    private Boolean reclamarYEntregar(RecordatorioDTO recordatorio) {
+        return reclamar(recordatorio.getCitaId()) ? entregar(recordatorio) : null;
+    }
+
+    // Primero se intenta retomar una fila existente; si no hay, se inserta en ENVIANDO y la
+    // restricción única sobre cita_id rechaza a la instancia que llegue segunda. Cada reclamo
+    // cuenta como intento, así maximo-intentos también detiene un mensaje que tumba o bloquea
+    // al enviador y deja la fila en ENVIANDO
+    private boolean reclamar(Long citaId) {
+        LocalDateTime ahora = LocalDateTime.now();
+        Integer retomadas = transactionTemplate.execute(estado -> recordatorioRepository.reclamar(
+                citaId, Recordatorio.Estado.ENVIANDO, Recordatorio.Estado.FALLIDO, maximoIntentos,
+                ahora, ahora.minus(abandono)));
+        if (retomadas != null && retomadas > 0) {
+            return true;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(estado -> {
+                Recordatorio nuevo = new Recordatorio();
+                nuevo.setCita(citaRepository.getReferenceById(citaId));
+                nuevo.setEstado(Recordatorio.Estado.ENVIANDO);
+                nuevo.setIntentos(1);
+                nuevo.setActualizadoEn(ahora);
+                recordatorioRepository.saveAndFlush(nuevo);
+            });
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    // El envío ocurre fuera de la transacción; si el proceso se detiene entre el envío y el
+    // registro, la fila queda en ENVIANDO y se reenvía pasado abandono-minutos con el mismo id
+    // de cita como clave de idempotencia
+    private boolean entregar(RecordatorioDTO recordatorio) {
+        boolean exitoso;
+        try {
+            enviador.enviar(recordatorio);
+            exitoso = true;
+        } catch (RuntimeException e) {
+            log.warn("No se pudo enviar el recordatorio de la cita {}: {}", recordatorio.getCitaId(), e.getMessage());
+            exitoso = false;
+        }
+
+        transactionTemplate.executeWithoutResult(estado -> {
+            Recordatorio registro = recordatorioRepository.findByCitaId(recordatorio.getCitaId()).orElseThrow();
+            registro.setEstado(exitoso ? Recordatorio.Estado.ENVIADO : Recordatorio.Estado.FALLIDO);
+            registro.setActualizadoEn(LocalDateTime.now());
+            recordatorioRepository.save(registro);
+        });
+
+        (exitoso ? enviados : fallidos).increment();
+        return exitoso;
+    }
+
+    // Método auxiliar para convertir entidad a DTO
+    private RecordatorioDTO mapearCitaARecordatorioDTO(Cita cita) {
+        return new RecordatorioDTO(
+                cita.getId(),
+                cita.getPaciente().getId(),
+                cita.getPaciente().getNombre(),
+                cita.getPaciente().getApellidos(),
+                cita.getHorarioConsulta(),
+                cita.getDoctor().getNombre(),
+                cita.getDoctor().getApellidoPaterno(),
+                cita.getConsultorio().getNumeroConsultorio(),
+                cita.getConsultorio().getPiso());
+    }
+}
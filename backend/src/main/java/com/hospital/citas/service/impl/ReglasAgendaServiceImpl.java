@@ -0,0 +1,212 @@
+package com.hospital.citas.service.impl;
+
+import com.hospital.citas.config.Sedes;
+import com.hospital.citas.model.EventoCambio;
+import com.hospital.citas.model.ReglaAgenda;
+import com.hospital.citas.repository.CitaDelDia;
+import com.hospital.citas.repository.CitaRepository;
+import com.hospital.citas.repository.ReglaAgendaRepository;
+import com.hospital.citas.service.CambiosService;
+import com.hospital.citas.service.ReceptorCambios;
+import com.hospital.citas.service.ReglasAgendaService;
+import com.hospital.citas.service.reglas.HorarioConsultorio;
+import com.hospital.citas.service.reglas.LimitesAgenda;
+import com.hospital.citas.service.reglas.MaximoCitasDoctor;
+import com.hospital.citas.service.reglas.MaximoCitasEspecialidad;
+import com.hospital.citas.service.reglas.ReglaCita;
+import com.hospital.citas.service.reglas.SeparacionPaciente;
+import com.hospital.citas.service.reglas.SolicitudCita;
+import jakarta.validation.ValidationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Las reglas activas de cada sede se leen una vez y se conservan compiladas hasta que cambian,
+// en esta instancia o en otra (evento REGLA del outbox). Cada solicitud cuesta una sola
+// consulta de las citas del día, sin importar cuántas reglas estén activas.
+@Service
+public class ReglasAgendaServiceImpl implements ReglasAgendaService, ReceptorCambios {
+
+    private record Reglas(List<ReglaCita> reglas, boolean usaEspecialidad, LimitesAgenda limites) {
+    }
+
+    private final ReglaAgendaRepository reglaAgendaRepository;
+    private final CitaRepository citaRepository;
+    private final CambiosService cambiosService;
+
+    private final Sedes sedes;
+    private final int horasConsultorioDia;
+    private final Map<String, Reglas> reglasPorSede = new ConcurrentHashMap<>();
+
+    // Cada invalidación avanza la generación de la sede; una carga solo queda en caché si la
+    // generación no cambió mientras leía, así una lectura anterior a un cambio no lo tapa
+    private final Map<String, AtomicLong> generaciones = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReglasAgendaServiceImpl(ReglaAgendaRepository reglaAgendaRepository,
+                                   CitaRepository citaRepository,
+                                   CambiosService cambiosService,
+                                   Sedes sedes,
+                                   @Value("${hospital.ocupacion.horas-consultorio:12}") int horasConsultorioDia) {
+        this.reglaAgendaRepository = reglaAgendaRepository;
+        this.citaRepository = citaRepository;
+        this.cambiosService = cambiosService;
+        this.sedes = sedes;
+        this.horasConsultorioDia = horasConsultorioDia;
+    }
+
+    @Override
+    public void validar(SolicitudCita solicitud) {
+        List<String> incumplimientos = evaluar(solicitud);
+        if (!incumplimientos.isEmpty()) {
+            throw new ValidationException(incumplimientos.get(0));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> evaluar(SolicitudCita solicitud) {
+        Reglas activas = obtenerReglasActivas();
+        if (activas.reglas().isEmpty()) {
+            return List.of();
+        }
+        LocalDate fecha = solicitud.horario().toLocalDate();
+        List<CitaDelDia> citasDelDia = citaRepository.findInstantaneaDia(
+                fecha.atStartOfDay(),
+                fecha.plusDays(1).atStartOfDay(),
+                solicitud.pacienteId(),
+                solicitud.doctorId(),
+                solicitud.consultorioId(),
+                activas.usaEspecialidad() ? solicitud.especialidad() : null);
+        return activas.reglas().stream()
+                .map(regla -> regla.evaluar(solicitud, citasDelDia))
+                .flatMap(Optional::stream)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LimitesAgenda obtenerLimites() {
+        return obtenerReglasActivas().limites();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ReglaAgenda> obtenerReglas() {
+        return reglaAgendaRepository.findAll();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ReglaAgenda> obtenerReglaPorId(Long id) {
+        return reglaAgendaRepository.findById(id);
+    }
+
+    @Override
+    @Transactional
+    public ReglaAgenda guardarRegla(ReglaAgenda regla) {
+        // Se compila antes de guardar para rechazar configuraciones incompletas
+        if (regla.isActiva()) {
+            compilar(regla);
+        }
+        ReglaAgenda reglaGuardada = reglaAgendaRepository.save(regla);
+        cambiosService.registrarCambio(EventoCambio.Entidad.REGLA, reglaGuardada.getId(), null);
+        invalidarAlConfirmar();
+        return reglaGuardada;
+    }
+
+    @Override
+    @Transactional
+    public void eliminarRegla(Long id) {
+        reglaAgendaRepository.deleteById(id);
+        cambiosService.registrarCambio(EventoCambio.Entidad.REGLA, id, null);
+        invalidarAlConfirmar();
+    }
+
+    // Cambios de reglas hechos por otras instancias; el evento llega con su sede en el contexto
+    @Override
+    public void aplicarCambio(EventoCambio evento) {
+        if (evento.getEntidad() == EventoCambio.Entidad.REGLA) {
+            invalidar(claveSede());
+        }
+    }
+
+    private Reglas obtenerReglasActivas() {
+        String sede = claveSede();
+        Reglas actuales = reglasPorSede.get(sede);
+        if (actuales != null) {
+            return actuales;
+        }
+        AtomicLong generacion = generaciones.computeIfAbsent(sede, s -> new AtomicLong());
+        long leida = generacion.get();
+        List<ReglaCita> compiladas = reglaAgendaRepository.findByActivaTrue().stream()
+                .map(this::compilar)
+                .collect(Collectors.toUnmodifiableList());
+        Reglas cargadas = new Reglas(compiladas, compiladas.stream().anyMatch(ReglaCita::usaEspecialidad),
+                new LimitesAgenda(compiladas, horasConsultorioDia));
+        // compute bloquea la entrada de la sede: una invalidación que avanza la generación
+        // después de la comprobación espera a que termine y borra lo guardado
+        reglasPorSede.compute(sede, (clave, enCache) -> generacion.get() == leida ? cargadas : enCache);
+        return cargadas;
+    }
+
+    private void invalidar(String sede) {
+        generaciones.computeIfAbsent(sede, s -> new AtomicLong()).incrementAndGet();
+        reglasPorSede.remove(sede);
+    }
+
+    private ReglaCita compilar(ReglaAgenda regla) {
+        return switch (regla.getTipo()) {
+            case SEPARACION_PACIENTE -> new SeparacionPaciente(Duration.ofMinutes(valorRequerido(regla)));
+            case MAXIMO_CITAS_DOCTOR -> new MaximoCitasDoctor(valorRequerido(regla), regla.getDoctorId(), regla.getEspecialidad());
+            case MAXIMO_CITAS_ESPECIALIDAD -> new MaximoCitasEspecialidad(valorRequerido(regla), regla.getEspecialidad());
+            case HORARIO_CONSULTORIO -> {
+                if (regla.getHoraApertura() == null || regla.getHoraCierre() == null
+                        || !regla.getHoraApertura().isBefore(regla.getHoraCierre())) {
+                    throw new ValidationException("La regla de horario necesita una hora de apertura anterior a la de cierre");
+                }
+                yield new HorarioConsultorio(regla.getConsultorioId(), regla.getHoraApertura(), regla.getHoraCierre());
+            }
+        };
+    }
+
+    private int valorRequerido(ReglaAgenda regla) {
+        if (regla.getValor() == null || regla.getValor() <= 0) {
+            throw new ValidationException("La regla " + regla.getTipo() + " necesita un valor mayor a 0");
+        }
+        return regla.getValor();
+    }
+
+    // Se invalida también después de confirmar: una lectura que empezó antes de la confirmación
+    // ve las reglas anteriores y, con la generación avanzada, no puede dejarlas en caché
+    private void invalidarAlConfirmar() {
+        String sede = claveSede();
+        invalidar(sede);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidar(sede);
+                }
+            });
+        }
+    }
+
+    // ConcurrentHashMap no admite claves null, que es la sede cuando están deshabilitadas
+    private String claveSede() {
+        String sede = sedes.actual();
+        return sede != null ? sede : "";
+    }
+}
@@ -0,0 +1,37 @@
+package com.hospital.citas.service.reglas;
+
+import com.hospital.citas.repository.CitaDelDia;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+// Horario de atención de un consultorio (o de todos si consultorioId es null); el cierre no se incluye
+public class HorarioConsultorio implements ReglaCita {
+
+    private final Long consultorioId;
+    private final LocalTime apertura;
+    private final LocalTime cierre;
+
+    public HorarioConsultorio(Long consultorioId, LocalTime apertura, LocalTime cierre) {
+        this.consultorioId = consultorioId;
+        this.apertura = apertura;
+        this.cierre = cierre;
+    }
+
+    @Override
+    public Optional<String> evaluar(SolicitudCita solicitud, List<CitaDelDia> citasDelDia) {
+        if (!aplicaA(solicitud.consultorioId()) || atiende(solicitud.horario().toLocalTime())) {
+            return Optional.empty();
+        }
+        return Optional.of("El consultorio solo atiende de " + apertura + " a " + cierre);
+    }
+
+    boolean aplicaA(Long consultorioId) {
+        return this.consultorioId == null || this.consultorioId.equals(consultorioId);
+    }
+
+    boolean atiende(LocalTime hora) {
+        return !hora.isBefore(apertura) && hora.isBefore(cierre);
+    }
+}
@@ -0,0 +1,79 @@
+package com.hospital.citas.service.reglas;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.stream.Collectors;
+
+// Límites efectivos de las reglas activas de una sede, para lo que no se decide evaluando una
+// solicitud: capacidad en disponibilidad y ocupación, reasignación masiva y optimización de
+// consultorios. Sin reglas de máximo un doctor tiene como límite una cita por hora de atención,
+// y sin reglas de horario un consultorio atiende las horas predeterminadas.
+public final class LimitesAgenda {
+
+    private final List<MaximoCitasDoctor> maximosDoctor;
+    private final List<MaximoCitasEspecialidad> maximosEspecialidad;
+    private final List<HorarioConsultorio> horarios;
+    private final int horasPredeterminadas;
+
+    public LimitesAgenda(List<ReglaCita> reglas, int horasPredeterminadas) {
+        this.maximosDoctor = filtrar(reglas, MaximoCitasDoctor.class);
+        this.maximosEspecialidad = filtrar(reglas, MaximoCitasEspecialidad.class);
+        this.horarios = filtrar(reglas, HorarioConsultorio.class);
+        this.horasPredeterminadas = horasPredeterminadas;
+    }
+
+    // La regla más restrictiva de las que aplican; doctorId null es cualquier doctor de la especialidad
+    public int maximoCitasDoctor(Long doctorId, String especialidad) {
+        return maximosDoctor.stream()
+                .filter(regla -> regla.aplicaA(doctorId, especialidad))
+                .mapToInt(MaximoCitasDoctor::getMaximo)
+                .min()
+                .orElse(horasPredeterminadas);
+    }
+
+    // Si hay reglas para doctores concretos, la capacidad de una especialidad se suma doctor por doctor
+    public boolean hayMaximosPorDoctor() {
+        return maximosDoctor.stream().anyMatch(MaximoCitasDoctor::esPorDoctor);
+    }
+
+    // Si alguna regla de máximo se limita a una especialidad, hace falta la del doctor para elegirla
+    public boolean dependeDeEspecialidad() {
+        return maximosDoctor.stream().anyMatch(MaximoCitasDoctor::esPorEspecialidad);
+    }
+
+    public OptionalInt maximoCitasEspecialidad(String especialidad) {
+        return maximosEspecialidad.stream()
+                .filter(regla -> regla.aplicaA(especialidad))
+                .mapToInt(MaximoCitasEspecialidad::getMaximo)
+                .min();
+    }
+
+    // Un horario se admite si lo permiten todas las reglas de horario que aplican al consultorio
+    public boolean atiende(Long consultorioId, LocalTime hora) {
+        return horarios.stream()
+                .filter(regla -> regla.aplicaA(consultorioId))
+                .allMatch(regla -> regla.atiende(hora));
+    }
+
+    // Horarios en punto que el consultorio atiende en un día
+    public int horasConsultorio(Long consultorioId) {
+        if (horarios.stream().noneMatch(regla -> regla.aplicaA(consultorioId))) {
+            return horasPredeterminadas;
+        }
+        int horas = 0;
+        for (int hora = 0; hora < 24; hora++) {
+            if (atiende(consultorioId, LocalTime.of(hora, 0))) {
+                horas++;
+            }
+        }
+        return horas;
+    }
+
+    private static <T> List<T> filtrar(List<ReglaCita> reglas, Class<T> tipo) {
+        return reglas.stream()
+                .filter(tipo::isInstance)
+                .map(tipo::cast)
+                .collect(Collectors.toUnmodifiableList());
+    }
+}
@@ -0,0 +1,52 @@
+package com.hospital.citas.service.reglas;
+
+import com.hospital.citas.repository.CitaDelDia;
+
+import java.util.List;
+import java.util.Optional;
+
+// Máximo de citas por día de un doctor; puede limitarse a un doctor o a una especialidad
+public class MaximoCitasDoctor implements ReglaCita {
+
+    private final int maximo;
+    private final Long doctorId;
+    private final String especialidad;
+
+    public MaximoCitasDoctor(int maximo, Long doctorId, String especialidad) {
+        this.maximo = maximo;
+        this.doctorId = doctorId;
+        this.especialidad = especialidad;
+    }
+
+    @Override
+    public Optional<String> evaluar(SolicitudCita solicitud, List<CitaDelDia> citasDelDia) {
+        if (!aplicaA(solicitud.doctorId(), solicitud.especialidad())) {
+            return Optional.empty();
+        }
+        long citas = citasDelDia.stream()
+                .filter(cita -> cita.getDoctorId().equals(solicitud.doctorId()))
+                .count();
+        if (citas < maximo) {
+            return Optional.empty();
+        }
+        return Optional.of("El doctor ya tiene el máximo de " + maximo + " citas para el día solicitado");
+    }
+
+    // doctorId null pregunta por cualquier doctor de la especialidad
+    boolean aplicaA(Long doctorId, String especialidad) {
+        return (this.doctorId == null || this.doctorId.equals(doctorId))
+                && (this.especialidad == null || this.especialidad.equals(especialidad));
+    }
+
+    int getMaximo() {
+        return maximo;
+    }
+
+    boolean esPorDoctor() {
+        return doctorId != null;
+    }
+
+    boolean esPorEspecialidad() {
+        return especialidad != null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.hospital.citas.service.reglas;
+
+import com.hospital.citas.repository.CitaDelDia;
+
+import java.util.List;
+import java.util.Optional;
+
+// Máximo de citas por día entre todos los doctores de una especialidad (o de cada una si es null)
+public class MaximoCitasEspecialidad implements ReglaCita {
+
+    private final int maximo;
+    private final String especialidad;
+
+    public MaximoCitasEspecialidad(int maximo, String especialidad) {
+        this.maximo = maximo;
+        this.especialidad = especialidad;
+    }
+
+    @Override
+    public Optional<String> evaluar(SolicitudCita solicitud, List<CitaDelDia> citasDelDia) {
+        if (!aplicaA(solicitud.especialidad())) {
+            return Optional.empty();
+        }
+        long citas = citasDelDia.stream()
+                .filter(cita -> solicitud.especialidad().equals(cita.getEspecialidad()))
+                .count();
+        if (citas < maximo) {
+            return Optional.empty();
+        }
+        return Optional.of("La especialidad " + solicitud.especialidad() + " ya tiene el máximo de "
+                + maximo + " citas para el día solicitado");
+    }
+
+    @Override
+    public boolean usaEspecialidad() {
+        return true;
+    }
+
+    boolean aplicaA(String especialidad) {
+        return this.especialidad == null || this.especialidad.equals(especialidad);
+    }
+
+    int getMaximo() {
+        return maximo;
+    }
+}
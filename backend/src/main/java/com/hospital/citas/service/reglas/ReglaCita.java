@@ -0,0 +1,19 @@
+package com.hospital.citas.service.reglas;
+
+import com.hospital.citas.repository.CitaDelDia;
+
+import java.util.List;
+import java.util.Optional;
+
+// Regla de agenda evaluada en memoria sobre las citas activas del día de la solicitud.
+// Para agregar un tipo de regla se implementa esta interfaz y se construye en ReglasAgendaServiceImpl.
+public interface ReglaCita {
+
+    // Mensaje de error si la solicitud incumple la regla
+    Optional<String> evaluar(SolicitudCita solicitud, List<CitaDelDia> citasDelDia);
+
+    // Si la regla necesita las citas de toda la especialidad del doctor, no solo las suyas
+    default boolean usaEspecialidad() {
+        return false;
+    }
+}
@@ -0,0 +1,32 @@
+package com.hospital.citas.service.reglas;
+
+import com.hospital.citas.repository.CitaDelDia;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+// Un paciente no puede tener dos citas el mismo día con menos de la separación indicada
+public class SeparacionPaciente implements ReglaCita {
+
+    private final Duration separacion;
+
+    public SeparacionPaciente(Duration separacion) {
+        this.separacion = separacion;
+    }
+
+    @Override
+    public Optional<String> evaluar(SolicitudCita solicitud, List<CitaDelDia> citasDelDia) {
+        boolean conflicto = citasDelDia.stream()
+                .filter(cita -> cita.getPacienteId().equals(solicitud.pacienteId()))
+                .anyMatch(cita -> cita.getHorarioConsulta().isAfter(solicitud.horario().minus(separacion))
+                        && cita.getHorarioConsulta().isBefore(solicitud.horario().plus(separacion)));
+        if (!conflicto) {
+            return Optional.empty();
+        }
+        String rango = separacion.toMinutesPart() == 0
+                ? separacion.toHours() + " horas"
+                : separacion.toMinutes() + " minutos";
+        return Optional.of("El paciente ya tiene una cita programada dentro del rango de " + rango + " de la hora solicitada");
+    }
+}
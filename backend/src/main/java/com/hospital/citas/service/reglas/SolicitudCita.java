@@ -0,0 +1,11 @@
+package com.hospital.citas.service.reglas;
+
+import java.time.LocalDateTime;
+
+// Cita que se quiere agendar, con lo que necesitan las reglas para evaluarla
+public record SolicitudCita(Long pacienteId,
+                            Long doctorId,
+                            String especialidad,
+                            Long consultorioId,
+                            LocalDateTime horario) {
+}
@@ -0,0 +1,49 @@
+package com.hospital.citas.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+// Agrupa llamadas concurrentes idénticas: mientras una llamada con la misma clave está en curso,
+// las demás esperan su resultado en lugar de repetirla. El resultado no se conserva al terminar.
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> enCurso = new ConcurrentHashMap<>();
+
+    public V ejecutar(K clave, Supplier<V> llamada) {
+        CompletableFuture<V> nueva = new CompletableFuture<>();
+        CompletableFuture<V> existente = enCurso.putIfAbsent(clave, nueva);
+        if (existente != null) {
+            return esperar(existente);
+        }
+
+        V resultado;
+        try {
+            resultado = llamada.get();
+        } catch (RuntimeException | Error e) {
+            enCurso.remove(clave, nueva);
+            nueva.completeExceptionally(e);
+            throw e;
+        }
+        // Se retira antes de completar para que nadie reciba el resultado después de terminada la llamada
+        enCurso.remove(clave, nueva);
+        nueva.complete(resultado);
+        return resultado;
+    }
+
+    private V esperar(CompletableFuture<V> llamada) {
+        try {
+            return llamada.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+}
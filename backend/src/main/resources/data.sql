@@ -15,9 +15,14 @@ INSERT INTO consultorios (numero_consultorio, piso) VALUES
 (301, 3);
 
 -- Insertar pacientes
-INSERT INTO pacientes (nombre, apellidos) VALUES
-('Pedro', 'Sánchez Gómez'),
-('Laura', 'Martínez López'),
-('Miguel', 'González Ruiz'),
-('Isabel', 'Rodríguez Flores'),
-('José', 'Pérez García'); 
\ No newline at end of file
+INSERT INTO pacientes (nombre, apellidos, curp) VALUES
+('Pedro', 'Sánchez Gómez', 'SAGP800115HDFNMD04'),
+('Laura', 'Martínez López', 'MALL920304MDFRPR09'),
+('Miguel', 'González Ruiz', 'GORM751122HJCNZG02'),
+('Isabel', 'Rodríguez Flores', 'ROFI880730MNLDLS05'),
+('José', 'Pérez García', 'PEGJ690512HPLRRS01');
+
+-- Reglas de agenda iniciales: 2 horas entre citas del mismo paciente y máximo 8 citas diarias por doctor
+INSERT INTO reglas_agenda (tipo, valor, activa) VALUES
+('SEPARACION_PACIENTE', 120, true),
+('MAXIMO_CITAS_DOCTOR', 8, true);
@@ -29,10 +29,14 @@ CREATE TABLE `citas` (
   `horario_consulta` datetime(6) NOT NULL,
   `id` bigint NOT NULL AUTO_INCREMENT,
   `paciente_id` bigint NOT NULL,
+  `version` bigint DEFAULT NULL,
+  `sede` varchar(30) DEFAULT NULL,
+  `ocupada` tinyint GENERATED ALWAYS AS ((case when `activa` then 1 end)) VIRTUAL,
   PRIMARY KEY (`id`),
-  UNIQUE KEY `UK_doctor_horario` (`doctor_id`,`horario_consulta`),
-  UNIQUE KEY `UK_consultorio_horario` (`consultorio_id`,`horario_consulta`),
-  KEY `FKnqrsxxcuysfcxiekvixm7h8r1` (`paciente_id`),
+  UNIQUE KEY `UK_doctor_horario` (`doctor_id`,`horario_consulta`,`ocupada`),
+  UNIQUE KEY `UK_consultorio_horario` (`consultorio_id`,`horario_consulta`,`ocupada`),
+  KEY `IDX_cita_paciente_horario` (`paciente_id`,`horario_consulta`),
+  KEY `IDX_cita_horario_activa` (`horario_consulta`,`activa`),
   CONSTRAINT `FKa0culq17omm7ln12kktrip4em` FOREIGN KEY (`doctor_id`) REFERENCES `doctores` (`id`),
   CONSTRAINT `FKii45k48batxulockxh03nhobf` FOREIGN KEY (`consultorio_id`) REFERENCES `consultorios` (`id`),
   CONSTRAINT `FKnqrsxxcuysfcxiekvixm7h8r1` FOREIGN KEY (`paciente_id`) REFERENCES `pacientes` (`id`)
@@ -59,8 +63,10 @@ CREATE TABLE `consultorios` (
   `numero_consultorio` int NOT NULL,
   `piso` int NOT NULL,
   `id` bigint NOT NULL AUTO_INCREMENT,
+  `sede` varchar(30) DEFAULT NULL,
   PRIMARY KEY (`id`),
   UNIQUE KEY `UK_ms9e6879jc7i104ay0lg47flw` (`numero_consultorio`),
+  KEY `IDX_consultorio_piso` (`piso`),
   CONSTRAINT `consultorios_chk_1` CHECK ((`piso` >= 1))
 ) ENGINE=InnoDB AUTO_INCREMENT=6 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
@@ -71,7 +77,7 @@ CREATE TABLE `consultorios` (
 
 LOCK TABLES `consultorios` WRITE;
 /*!40000 ALTER TABLE `consultorios` DISABLE KEYS */;
-INSERT INTO `consultorios` VALUES (101,1,1),(102,1,2),(201,2,3),(202,2,4),(301,3,5);
+INSERT INTO `consultorios` VALUES (101,1,1,NULL),(102,1,2,NULL),(201,2,3,NULL),(202,2,4,NULL),(301,3,5,NULL);
 /*!40000 ALTER TABLE `consultorios` ENABLE KEYS */;
 UNLOCK TABLES;
 
@@ -84,11 +90,13 @@ DROP TABLE IF EXISTS `doctores`;
 /*!50503 SET character_set_client = utf8mb4 */;
 CREATE TABLE `doctores` (
   `id` bigint NOT NULL AUTO_INCREMENT,
+  `sede` varchar(30) DEFAULT NULL,
   `apellido_materno` varchar(255) DEFAULT NULL,
   `apellido_paterno` varchar(255) DEFAULT NULL,
   `especialidad` varchar(255) DEFAULT NULL,
   `nombre` varchar(255) DEFAULT NULL,
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `IDX_doctor_especialidad` (`especialidad`)
 ) ENGINE=InnoDB AUTO_INCREMENT=6 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -98,10 +106,78 @@ CREATE TABLE `doctores` (
 
 LOCK TABLES `doctores` WRITE;
 /*!40000 ALTER TABLE `doctores` DISABLE KEYS */;
-INSERT INTO `doctores` VALUES (1,'Pérez','García','Medicina Interna','Juan'),(2,'Sánchez','López','Medicina Interna','María'),(3,'Rodríguez','Martínez','Medicina Interna','Roberto'),(4,'González','Hernández','Medicina Interna','Ana'),(5,'Torres','Ramírez','Medicina Interna','Carlos');
+INSERT INTO `doctores` VALUES (1,NULL,'Pérez','García','Medicina Interna','Juan'),(2,NULL,'Sánchez','López','Medicina Interna','María'),(3,NULL,'Rodríguez','Martínez','Medicina Interna','Roberto'),(4,NULL,'González','Hernández','Medicina Interna','Ana'),(5,NULL,'Torres','Ramírez','Medicina Interna','Carlos');
 /*!40000 ALTER TABLE `doctores` ENABLE KEYS */;
 UNLOCK TABLES;
 
+--
+-- Table structure for table `lista_espera`
+--
+
+DROP TABLE IF EXISTS `lista_espera`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `lista_espera` (
+  `activa` bit(1) NOT NULL,
+  `fecha_desde` date DEFAULT NULL,
+  `fecha_hasta` date DEFAULT NULL,
+  `hora_desde` time(6) DEFAULT NULL,
+  `hora_hasta` time(6) DEFAULT NULL,
+  `cita_id` bigint DEFAULT NULL,
+  `doctor_id` bigint DEFAULT NULL,
+  `fecha_registro` datetime(6) NOT NULL,
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `paciente_id` bigint NOT NULL,
+  `especialidad` varchar(255) DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  KEY `IDX_espera_doctor` (`activa`,`doctor_id`,`fecha_desde`,`fecha_registro`),
+  KEY `IDX_espera_especialidad` (`activa`,`especialidad`,`fecha_desde`,`fecha_registro`),
+  KEY `FK_espera_cita` (`cita_id`),
+  KEY `FK_espera_doctor` (`doctor_id`),
+  KEY `FK_espera_paciente` (`paciente_id`),
+  CONSTRAINT `FK_espera_cita` FOREIGN KEY (`cita_id`) REFERENCES `citas` (`id`),
+  CONSTRAINT `FK_espera_doctor` FOREIGN KEY (`doctor_id`) REFERENCES `doctores` (`id`),
+  CONSTRAINT `FK_espera_paciente` FOREIGN KEY (`paciente_id`) REFERENCES `pacientes` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Dumping data for table `lista_espera`
+--
+
+LOCK TABLES `lista_espera` WRITE;
+/*!40000 ALTER TABLE `lista_espera` DISABLE KEYS */;
+/*!40000 ALTER TABLE `lista_espera` ENABLE KEYS */;
+UNLOCK TABLES;
+
+--
+-- Table structure for table `outbox_cambios`
+--
+
+DROP TABLE IF EXISTS `outbox_cambios`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `outbox_cambios` (
+  `fecha` date DEFAULT NULL,
+  `creado_en` datetime(6) NOT NULL,
+  `entidad_id` bigint DEFAULT NULL,
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `nodo` varchar(36) NOT NULL,
+  `entidad` enum('CITA','DOCTOR','CONSULTORIO','PACIENTE','REGLA') NOT NULL,
+  PRIMARY KEY (`id`),
+  KEY `IDX_outbox_creado` (`creado_en`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Dumping data for table `outbox_cambios`
+--
+
+LOCK TABLES `outbox_cambios` WRITE;
+/*!40000 ALTER TABLE `outbox_cambios` DISABLE KEYS */;
+/*!40000 ALTER TABLE `outbox_cambios` ENABLE KEYS */;
+UNLOCK TABLES;
+
 --
 -- Table structure for table `pacientes`
 --
@@ -110,10 +186,13 @@ DROP TABLE IF EXISTS `pacientes`;
 /*!40101 SET @saved_cs_client     = @@character_set_client */;
 /*!50503 SET character_set_client = utf8mb4 */;
 CREATE TABLE `pacientes` (
+  `curp` varchar(18) DEFAULT NULL,
   `id` bigint NOT NULL AUTO_INCREMENT,
+  `sede` varchar(30) DEFAULT NULL,
   `apellidos` varchar(255) DEFAULT NULL,
   `nombre` varchar(255) DEFAULT NULL,
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `UK_paciente_curp` (`curp`)
 ) ENGINE=InnoDB AUTO_INCREMENT=6 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -123,9 +202,68 @@ CREATE TABLE `pacientes` (
 
 LOCK TABLES `pacientes` WRITE;
 /*!40000 ALTER TABLE `pacientes` DISABLE KEYS */;
-INSERT INTO `pacientes` VALUES (1,'Sánchez Gómez','Pedro'),(2,'Martínez López','Laura'),(3,'González Ruiz','Miguel'),(4,'Rodríguez Flores','Isabel'),(5,'Pérez García','José');
+INSERT INTO `pacientes` VALUES ('SAGP800115HDFNMD04',1,NULL,'Sánchez Gómez','Pedro'),('MALL920304MDFRPR09',2,NULL,'Martínez López','Laura'),('GORM751122HJCNZG02',3,NULL,'González Ruiz','Miguel'),('ROFI880730MNLDLS05',4,NULL,'Rodríguez Flores','Isabel'),('PEGJ690512HPLRRS01',5,NULL,'Pérez García','José');
 /*!40000 ALTER TABLE `pacientes` ENABLE KEYS */;
 UNLOCK TABLES;
+
+--
+-- Table structure for table `recordatorios`
+--
+
+DROP TABLE IF EXISTS `recordatorios`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `recordatorios` (
+  `intentos` int NOT NULL,
+  `actualizado_en` datetime(6) NOT NULL,
+  `cita_id` bigint NOT NULL,
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `estado` enum('ENVIANDO','ENVIADO','FALLIDO') NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `UK_recordatorio_cita` (`cita_id`),
+  CONSTRAINT `FK_recordatorio_cita` FOREIGN KEY (`cita_id`) REFERENCES `citas` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Dumping data for table `recordatorios`
+--
+
+LOCK TABLES `recordatorios` WRITE;
+/*!40000 ALTER TABLE `recordatorios` DISABLE KEYS */;
+/*!40000 ALTER TABLE `recordatorios` ENABLE KEYS */;
+UNLOCK TABLES;
+
+--
+-- Table structure for table `reglas_agenda`
+--
+
+DROP TABLE IF EXISTS `reglas_agenda`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `reglas_agenda` (
+  `activa` bit(1) NOT NULL,
+  `hora_apertura` time(6) DEFAULT NULL,
+  `hora_cierre` time(6) DEFAULT NULL,
+  `valor` int DEFAULT NULL,
+  `consultorio_id` bigint DEFAULT NULL,
+  `doctor_id` bigint DEFAULT NULL,
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `especialidad` varchar(255) DEFAULT NULL,
+  `tipo` enum('SEPARACION_PACIENTE','MAXIMO_CITAS_DOCTOR','MAXIMO_CITAS_ESPECIALIDAD','HORARIO_CONSULTORIO') NOT NULL,
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB AUTO_INCREMENT=3 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Dumping data for table `reglas_agenda`
+--
+
+LOCK TABLES `reglas_agenda` WRITE;
+/*!40000 ALTER TABLE `reglas_agenda` DISABLE KEYS */;
+INSERT INTO `reglas_agenda` VALUES (_binary '',NULL,NULL,120,NULL,NULL,1,NULL,'SEPARACION_PACIENTE'),(_binary '',NULL,NULL,8,NULL,NULL,2,NULL,'MAXIMO_CITAS_DOCTOR');
+/*!40000 ALTER TABLE `reglas_agenda` ENABLE KEYS */;
+UNLOCK TABLES;
 /*!40103 SET TIME_ZONE=@OLD_TIME_ZONE */;
 
 /*!40101 SET SQL_MODE=@OLD_SQL_MODE */;
@@ -136,4 +274,4 @@ UNLOCK TABLES;
 /*!40101 SET COLLATION_CONNECTION=@OLD_COLLATION_CONNECTION */;
 /*!40111 SET SQL_NOTES=@OLD_SQL_NOTES */;
 
--- Dump completed on 2025-05-09 18:33:33
+-- Dump completed on 2026-10-19 10:12:41
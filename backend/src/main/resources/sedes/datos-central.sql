@@ -0,0 +1,19 @@
+-- Datos iniciales de la sede central (perfil sedes)
+INSERT INTO doctores (nombre, apellido_paterno, apellido_materno, especialidad, sede) VALUES
+('Juan', 'García', 'Pérez', 'Medicina Interna', 'central'),
+('María', 'López', 'Sánchez', 'Medicina Interna', 'central'),
+('Roberto', 'Martínez', 'Rodríguez', 'Cardiología', 'central');
+
+INSERT INTO consultorios (numero_consultorio, piso, sede) VALUES
+(101, 1, 'central'),
+(102, 1, 'central'),
+(201, 2, 'central');
+
+-- Pedro también se atiende en la sede norte con la misma CURP
+INSERT INTO pacientes (nombre, apellidos, curp, sede) VALUES
+('Pedro', 'Sánchez Gómez', 'SAGP800115HDFNMD04', 'central'),
+('Laura', 'Martínez López', 'MALL920304MDFRPR09', 'central');
+
+INSERT INTO reglas_agenda (tipo, valor, activa) VALUES
+('SEPARACION_PACIENTE', 120, true),
+('MAXIMO_CITAS_DOCTOR', 8, true);
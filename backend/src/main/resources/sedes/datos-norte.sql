@@ -0,0 +1,16 @@
+-- Datos iniciales de la sede norte (perfil sedes)
+INSERT INTO doctores (nombre, apellido_paterno, apellido_materno, especialidad, sede) VALUES
+('Ana', 'Hernández', 'González', 'Medicina Interna', 'norte'),
+('Carlos', 'Ramírez', 'Torres', 'Pediatría', 'norte');
+
+INSERT INTO consultorios (numero_consultorio, piso, sede) VALUES
+(101, 1, 'norte'),
+(201, 2, 'norte');
+
+INSERT INTO pacientes (nombre, apellidos, curp, sede) VALUES
+('Pedro', 'Sánchez Gómez', 'SAGP800115HDFNMD04', 'norte'),
+('Miguel', 'González Ruiz', 'GORM751122HJCNZG02', 'norte');
+
+INSERT INTO reglas_agenda (tipo, valor, activa) VALUES
+('SEPARACION_PACIENTE', 120, true),
+('MAXIMO_CITAS_DOCTOR', 10, true);
@@ -0,0 +1,16 @@
+-- Datos iniciales de la sede sur (perfil sedes)
+INSERT INTO doctores (nombre, apellido_paterno, apellido_materno, especialidad, sede) VALUES
+('Lucía', 'Flores', 'Vega', 'Medicina Interna', 'sur'),
+('Andrés', 'Castro', 'Núñez', 'Dermatología', 'sur');
+
+INSERT INTO consultorios (numero_consultorio, piso, sede) VALUES
+(101, 1, 'sur'),
+(102, 1, 'sur');
+
+INSERT INTO pacientes (nombre, apellidos, curp, sede) VALUES
+('Isabel', 'Rodríguez Flores', 'ROFI880730MNLDLS05', 'sur'),
+('José', 'Pérez García', 'PEGJ690512HPLRRS01', 'sur');
+
+INSERT INTO reglas_agenda (tipo, valor, activa) VALUES
+('SEPARACION_PACIENTE', 120, true),
+('MAXIMO_CITAS_DOCTOR', 8, true);
@@ -0,0 +1,116 @@
+package com.hospital.citas;
+
+import com.hospital.citas.model.Cita;
+import com.hospital.citas.model.Consultorio;
+import com.hospital.citas.model.Doctor;
+import com.hospital.citas.model.Paciente;
+import com.hospital.citas.model.ReglaAgenda;
+import com.hospital.citas.repository.CitaRepository;
+import com.hospital.citas.repository.ConsultorioRepository;
+import com.hospital.citas.repository.DoctorRepository;
+import com.hospital.citas.repository.EventoCambioRepository;
+import com.hospital.citas.repository.ListaEsperaRepository;
+import com.hospital.citas.repository.PacienteRepository;
+import com.hospital.citas.repository.RecordatorioRepository;
+import com.hospital.citas.repository.ReglaAgendaRepository;
+import org.springframework.context.ApplicationContext;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+// Agenda pequeña para las pruebas: dos doctores de la misma especialidad, tres consultorios
+// (el tercero libre), dos pacientes y cuatro citas mañana a las 9:00 y a las 12:00
+public class DatosPrueba {
+
+    public static final String ESPECIALIDAD = "Cardiología";
+
+    public final LocalDate manana = LocalDate.now().plusDays(1);
+
+    public Doctor doctor1;
+    public Doctor doctor2;
+    public Consultorio consultorio1;
+    public Consultorio consultorio2;
+    public Consultorio consultorio3;
+    public Paciente paciente1;
+    public Paciente paciente2;
+    public Cita cita1;
+    public Cita cita2;
+    public Cita cita3;
+    public Cita cita4;
+
+    private final ApplicationContext contexto;
+
+    public DatosPrueba(ApplicationContext contexto) {
+        this.contexto = contexto;
+    }
+
+    public DatosPrueba cargar() {
+        limpiar();
+
+        ReglaAgendaRepository reglas = contexto.getBean(ReglaAgendaRepository.class);
+        reglas.save(regla(ReglaAgenda.Tipo.SEPARACION_PACIENTE, 120));
+        reglas.save(regla(ReglaAgenda.Tipo.MAXIMO_CITAS_DOCTOR, 8));
+
+        DoctorRepository doctores = contexto.getBean(DoctorRepository.class);
+        doctor1 = doctores.save(new Doctor(null, "Juan", "García", "Pérez", ESPECIALIDAD, null));
+        doctor2 = doctores.save(new Doctor(null, "María", "López", "Sánchez", ESPECIALIDAD, null));
+
+        ConsultorioRepository consultorios = contexto.getBean(ConsultorioRepository.class);
+        consultorio1 = consultorios.save(new Consultorio(null, 101, 1, null));
+        consultorio2 = consultorios.save(new Consultorio(null, 201, 2, null));
+        consultorio3 = consultorios.save(new Consultorio(null, 301, 3, null));
+
+        PacienteRepository pacientes = contexto.getBean(PacienteRepository.class);
+        paciente1 = pacientes.save(paciente("Pedro", "Sánchez Gómez", "SAGP800101HDFNMD01"));
+        paciente2 = pacientes.save(paciente("Laura", "Martínez López", "MALL850202MDFRPR02"));
+
+        cita1 = cita(doctor1, consultorio1, paciente1, 9);
+        cita2 = cita(doctor2, consultorio2, paciente2, 9);
+        cita3 = cita(doctor1, consultorio1, paciente2, 12);
+        cita4 = cita(doctor2, consultorio2, paciente1, 12);
+        return this;
+    }
+
+    // Las tablas se vacían de las dependientes a las principales
+    public void limpiar() {
+        contexto.getBean(RecordatorioRepository.class).deleteAllInBatch();
+        contexto.getBean(ListaEsperaRepository.class).deleteAllInBatch();
+        contexto.getBean(EventoCambioRepository.class).deleteAllInBatch();
+        contexto.getBean(CitaRepository.class).deleteAllInBatch();
+        contexto.getBean(ReglaAgendaRepository.class).deleteAllInBatch();
+        contexto.getBean(DoctorRepository.class).deleteAllInBatch();
+        contexto.getBean(ConsultorioRepository.class).deleteAllInBatch();
+        contexto.getBean(PacienteRepository.class).deleteAllInBatch();
+    }
+
+    public LocalDateTime a(int hora) {
+        return manana.atTime(LocalTime.of(hora, 0));
+    }
+
+    private Cita cita(Doctor doctor, Consultorio consultorio, Paciente paciente, int hora) {
+        Cita cita = new Cita();
+        cita.setDoctor(doctor);
+        cita.setConsultorio(consultorio);
+        cita.setPaciente(paciente);
+        cita.setHorarioConsulta(a(hora));
+        cita.setActiva(true);
+        return contexto.getBean(CitaRepository.class).save(cita);
+    }
+
+    private static Paciente paciente(String nombre, String apellidos, String curp) {
+        Paciente paciente = new Paciente();
+        paciente.setNombre(nombre);
+        paciente.setApellidos(apellidos);
+        paciente.setCurp(curp);
+        return paciente;
+    }
+
+    private static ReglaAgenda regla(ReglaAgenda.Tipo tipo, int valor) {
+        ReglaAgenda regla = new ReglaAgenda();
+        regla.setTipo(tipo);
+        regla.setValor(valor);
+        regla.setActiva(true);
+        return regla;
+    }
+}
@@ -0,0 +1,324 @@
+package com.hospital.citas;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.citas.model.Doctor;
+import com.hospital.citas.model.Paciente;
+import com.hospital.citas.repository.DoctorRepository;
+import com.hospital.citas.repository.PacienteRepository;
+import com.hospital.citas.service.OcupacionService;
+import com.hospital.citas.service.ReglasAgendaService;
+import com.hospital.citas.service.reglas.SolicitudCita;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doNothing;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Presupuesto de acceso a datos por endpoint: sentencias SQL preparadas, filas devueltas por las
+// consultas y entidades cargadas, medidos con las estadísticas de Hibernate sobre una agenda fija.
+// Un N+1 o una consulta que deja de filtrar rompe el presupuesto aunque el número de sentencias no cambie.
+// Las cargas diferidas (proxies inicializados uno a uno) no se admiten en ningún endpoint.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PresupuestoConsultasTest {
+
+    private record Medicion(long sentencias, long filas, long entidades, long cargasDiferidas) {
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationContext contexto;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ReglasAgendaService reglasAgendaService;
+
+    // Un cambio de consultorio programa un recálculo de la ocupación en otro hilo, cuyas sentencias
+    // entrarían en las estadísticas (que son globales); las pruebas de consultorios lo omiten
+    @SpyBean
+    private OcupacionService ocupacionService;
+
+    private Statistics estadisticas;
+    private DatosPrueba datos;
+
+    @BeforeEach
+    void cargarAgenda() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        datos = new DatosPrueba(contexto).cargar();
+        // Las reglas compiladas se cachean por sede; la primera carga no forma parte de ningún endpoint
+        reglasAgendaService.evaluar(new SolicitudCita(datos.paciente1.getId(), datos.doctor1.getId(),
+                DatosPrueba.ESPECIALIDAD, datos.consultorio3.getId(), datos.a(15)));
+    }
+
+    @AfterEach
+    void limpiar() {
+        datos.limpiar();
+    }
+
+    @Test
+    void listarCitas() throws Exception {
+        cumple(medir(get("/api/citas")), 1, 4, 10);
+    }
+
+    @Test
+    void citasPorFecha() throws Exception {
+        cumple(medir(get("/api/citas/fecha/{fecha}", datos.manana)), 1, 4, 10);
+    }
+
+    @Test
+    void citasPorDoctorYFecha() throws Exception {
+        cumple(medir(get("/api/citas/doctor/{id}/fecha/{fecha}", datos.doctor1.getId(), datos.manana)), 1, 2, 6);
+    }
+
+    @Test
+    void citasPorFechaCompactas() throws Exception {
+        cumple(medir(get("/api/citas/fecha/{fecha}", datos.manana).param("compacto", "true")), 1, 4, 10);
+    }
+
+    @Test
+    void citasPorFechaConCampos() throws Exception {
+        // La proyección por campos no debe materializar entidades
+        cumple(medir(get("/api/citas/fecha/{fecha}", datos.manana).param("fields", "id,horarioConsulta")), 1, 4, 0);
+    }
+
+    @Test
+    void citasPorConsultorioYFecha() throws Exception {
+        cumple(medir(get("/api/citas/consultorio/{id}/fecha/{fecha}", datos.consultorio1.getId(), datos.manana)), 1, 2, 6);
+    }
+
+    @Test
+    void buscarCitas() throws Exception {
+        cumple(medir(get("/api/citas/buscar").param("doctorId", datos.doctor1.getId().toString())), 1, 2, 6);
+    }
+
+    @Test
+    void obtenerCita() throws Exception {
+        cumple(medir(get("/api/citas/{id}", datos.cita1.getId())), 1, 0, 4);
+    }
+
+    @Test
+    void crearCita() throws Exception {
+        Map<String, Object> cita = cita(datos.doctor1.getId(), datos.consultorio3.getId(), datos.paciente1.getId(), 15);
+        cumple(medir(post("/api/citas").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(cita)), 201), 6, 3, 3);
+    }
+
+    @Test
+    void actualizarCita() throws Exception {
+        Map<String, Object> cita = cita(datos.doctor1.getId(), datos.consultorio1.getId(), datos.paciente1.getId(), 16);
+        cita.put("version", datos.cita1.getVersion());
+        cumple(medir(put("/api/citas/{id}", datos.cita1.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(cita))), 6, 2, 4);
+    }
+
+    @Test
+    void cancelarCita() throws Exception {
+        cumple(medir(patch("/api/citas/{id}/cancelar", datos.cita3.getId())), 4, 1, 4);
+    }
+
+    @Test
+    void cancelarCitasMasivo() throws Exception {
+        Map<String, Object> operacion = new LinkedHashMap<>();
+        operacion.put("doctorId", datos.doctor1.getId());
+        operacion.put("desde", datos.manana);
+        operacion.put("hasta", datos.manana);
+        cumple(medir(post("/api/citas/masivo/cancelar").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(operacion))), 3, 4, 6);
+    }
+
+    @Test
+    void reasignarConsultorioMasivo() throws Exception {
+        Map<String, Object> operacion = new LinkedHashMap<>();
+        operacion.put("consultorioId", datos.consultorio1.getId());
+        operacion.put("nuevoConsultorioId", datos.consultorio3.getId());
+        operacion.put("desde", datos.manana);
+        operacion.put("hasta", datos.manana);
+        cumple(medir(post("/api/citas/masivo/reasignar").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(operacion))), 5, 4, 7);
+    }
+
+    @Test
+    void disponibilidadDoctor() throws Exception {
+        cumple(medir(get("/api/disponibilidad/doctor/{id}", datos.doctor1.getId())
+                .param("desde", datos.manana.toString())
+                .param("hasta", datos.manana.plusDays(6).toString())), 1, 2, 0);
+    }
+
+    @Test
+    void disponibilidadEspecialidad() throws Exception {
+        cumple(medir(get("/api/disponibilidad/especialidad/{especialidad}", DatosPrueba.ESPECIALIDAD)
+                .param("desde", datos.manana.toString())
+                .param("hasta", datos.manana.plusDays(6).toString())), 2, 5, 0);
+    }
+
+    @Test
+    void ocupacionDoctor() throws Exception {
+        // Se responde desde los contadores en memoria
+        cumple(medir(get("/api/ocupacion/doctor/{id}/fecha/{fecha}", datos.doctor1.getId(), datos.manana)), 0, 0, 0);
+    }
+
+    @Test
+    void listarCatalogos() throws Exception {
+        cumple(medir(get("/api/doctores")), 1, 2, 2);
+        cumple(medir(get("/api/pacientes")), 1, 2, 2);
+        cumple(medir(get("/api/consultorios")), 1, 3, 3);
+        cumple(medir(get("/api/reglas")), 1, 2, 2);
+        cumple(medir(get("/api/lista-espera")), 1, 0, 0);
+    }
+
+    // En los catálogos, la búsqueda del controlador y la del servicio comparten el contexto de
+    // persistencia de la petición (open-in-view); el presupuesto admite que no lo compartan
+
+    @Test
+    void obtenerCatalogosPorId() throws Exception {
+        cumple(medir(get("/api/doctores/{id}", datos.doctor1.getId())), 1, 0, 1);
+        cumple(medir(get("/api/pacientes/{id}", datos.paciente1.getId())), 1, 0, 1);
+        cumple(medir(get("/api/consultorios/{id}", datos.consultorio1.getId())), 1, 0, 1);
+    }
+
+    @Test
+    void crearDoctor() throws Exception {
+        cumple(medir(post("/api/doctores").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(doctor("Ana"))), 201), 2, 0, 0);
+    }
+
+    @Test
+    void actualizarDoctor() throws Exception {
+        cumple(medir(put("/api/doctores/{id}", datos.doctor1.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(doctor("Juan Carlos")))), 4, 0, 2);
+    }
+
+    @Test
+    void eliminarDoctor() throws Exception {
+        Doctor sinCitas = contexto.getBean(DoctorRepository.class)
+                .save(new Doctor(null, "Ana", "Flores", "Ruiz", DatosPrueba.ESPECIALIDAD, null));
+        cumple(medir(delete("/api/doctores/{id}", sinCitas.getId()), 204), 4, 0, 2);
+    }
+
+    @Test
+    void crearPaciente() throws Exception {
+        cumple(medir(post("/api/pacientes").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(paciente("FORA900303MDFLZN03"))), 201), 3, 1, 0);
+    }
+
+    @Test
+    void actualizarPaciente() throws Exception {
+        cumple(medir(put("/api/pacientes/{id}", datos.paciente1.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(paciente("SAGP800101HDFNMD01")))), 4, 1, 1);
+    }
+
+    @Test
+    void eliminarPaciente() throws Exception {
+        Paciente sinCitas = new Paciente();
+        sinCitas.setNombre("Ana");
+        sinCitas.setApellidos("Flores Ruiz");
+        sinCitas = contexto.getBean(PacienteRepository.class).save(sinCitas);
+        cumple(medir(delete("/api/pacientes/{id}", sinCitas.getId()), 204), 4, 0, 2);
+    }
+
+    @Test
+    void crearConsultorio() throws Exception {
+        doNothing().when(ocupacionService).consultoriosModificados();
+        cumple(medir(post("/api/consultorios").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(consultorio(401, 4))), 201), 2, 0, 0);
+    }
+
+    @Test
+    void actualizarConsultorio() throws Exception {
+        doNothing().when(ocupacionService).consultoriosModificados();
+        cumple(medir(put("/api/consultorios/{id}", datos.consultorio3.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(consultorio(302, 3)))), 4, 0, 2);
+    }
+
+    @Test
+    void eliminarConsultorio() throws Exception {
+        doNothing().when(ocupacionService).consultoriosModificados();
+        // El tercer consultorio no tiene citas
+        cumple(medir(delete("/api/consultorios/{id}", datos.consultorio3.getId()), 204), 4, 0, 2);
+    }
+
+    private Medicion medir(RequestBuilder peticion) throws Exception {
+        return medir(peticion, 200);
+    }
+
+    private Medicion medir(RequestBuilder peticion, int estadoEsperado) throws Exception {
+        estadisticas.clear();
+        mockMvc.perform(peticion).andExpect(status().is(estadoEsperado));
+        long filas = Arrays.stream(estadisticas.getQueries())
+                .mapToLong(consulta -> estadisticas.getQueryStatistics(consulta).getExecutionRowCount())
+                .sum();
+        return new Medicion(estadisticas.getPrepareStatementCount(), filas,
+                estadisticas.getEntityLoadCount(), estadisticas.getEntityFetchCount());
+    }
+
+    private static void cumple(Medicion medicion, long sentencias, long filas, long entidades) {
+        assertThat(medicion.sentencias()).as("sentencias SQL").isLessThanOrEqualTo(sentencias);
+        assertThat(medicion.filas()).as("filas devueltas").isLessThanOrEqualTo(filas);
+        assertThat(medicion.entidades()).as("entidades cargadas").isLessThanOrEqualTo(entidades);
+        assertThat(medicion.cargasDiferidas()).as("cargas diferidas").isZero();
+    }
+
+    private static Map<String, Object> doctor(String nombre) {
+        Map<String, Object> doctor = new LinkedHashMap<>();
+        doctor.put("nombre", nombre);
+        doctor.put("apellidoPaterno", "García");
+        doctor.put("apellidoMaterno", "Pérez");
+        doctor.put("especialidad", DatosPrueba.ESPECIALIDAD);
+        return doctor;
+    }
+
+    private static Map<String, Object> paciente(String curp) {
+        Map<String, Object> paciente = new LinkedHashMap<>();
+        paciente.put("nombre", "Ana");
+        paciente.put("apellidos", "Flores Ruiz");
+        paciente.put("curp", curp);
+        return paciente;
+    }
+
+    private static Map<String, Object> consultorio(int numero, int piso) {
+        Map<String, Object> consultorio = new LinkedHashMap<>();
+        consultorio.put("numeroConsultorio", numero);
+        consultorio.put("piso", piso);
+        return consultorio;
+    }
+
+    private Map<String, Object> cita(Long doctorId, Long consultorioId, Long pacienteId, int hora) {
+        Map<String, Object> cita = new LinkedHashMap<>();
+        cita.put("doctorId", doctorId);
+        cita.put("consultorioId", consultorioId);
+        cita.put("pacienteId", pacienteId);
+        cita.put("horarioConsulta", datos.a(hora));
+        return cita;
+    }
+}
@@ -0,0 +1,197 @@
+package com.hospital.citas.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.hospital.citas.DatosPrueba;
+import com.hospital.citas.dto.AgendaCompactaDTO;
+import com.hospital.citas.dto.CitaDTO;
+import com.hospital.citas.model.Cita;
+import com.hospital.citas.model.Consultorio;
+import com.hospital.citas.model.Doctor;
+import com.hospital.citas.model.Paciente;
+import com.hospital.citas.repository.CitaRepository;
+import com.hospital.citas.repository.ConsultorioRepository;
+import com.hospital.citas.repository.DoctorRepository;
+import com.hospital.citas.repository.PacienteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Tamaño de la agenda de un día en JSON, CBOR y Smile, completa y compacta. La agenda es la de
+// un día lleno: 8 doctores con 8 citas cada uno en 8 consultorios, 64 pacientes distintos.
+// Los tres formatos deben decodificarse en los mismos DTO, y se compara el tiempo de codificar y
+// decodificar la agenda con cada uno
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class FormatosBinariosTest {
+
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private static final int DOCTORES = 8;
+    private static final int CITAS_POR_DOCTOR = 8;
+    private static final int CALENTAMIENTO = 2_000;
+    private static final int ITERACIONES = 5_000;
+
+    private static final Logger log = LoggerFactory.getLogger(FormatosBinariosTest.class);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ApplicationContext contexto;
+
+    @Autowired
+    private ObjectMapper json;
+
+    @Autowired
+    private Jackson2ObjectMapperBuilder builder;
+
+    private final LocalDate fecha = LocalDate.now().plusDays(1);
+
+    @BeforeEach
+    void cargarAgenda() {
+        new DatosPrueba(contexto).limpiar();
+        DoctorRepository doctores = contexto.getBean(DoctorRepository.class);
+        ConsultorioRepository consultorios = contexto.getBean(ConsultorioRepository.class);
+        PacienteRepository pacientes = contexto.getBean(PacienteRepository.class);
+
+        List<Cita> citas = new ArrayList<>();
+        for (int d = 0; d < DOCTORES; d++) {
+            Doctor doctor = doctores.save(new Doctor(null, "Doctor" + d, "García", "Pérez", DatosPrueba.ESPECIALIDAD, null));
+            Consultorio consultorio = consultorios.save(new Consultorio(null, 101 + d, 1 + d / 4, null));
+            for (int h = 0; h < CITAS_POR_DOCTOR; h++) {
+                Paciente paciente = pacientes.save(new Paciente(null, "Paciente" + (d * CITAS_POR_DOCTOR + h),
+                        "Martínez López", null, null));
+                Cita cita = new Cita();
+                cita.setDoctor(doctor);
+                cita.setConsultorio(consultorio);
+                cita.setPaciente(paciente);
+                cita.setHorarioConsulta(fecha.atTime(9 + h, 0));
+                cita.setActiva(true);
+                citas.add(cita);
+            }
+        }
+        contexto.getBean(CitaRepository.class).saveAll(citas);
+    }
+
+    @AfterEach
+    void limpiar() {
+        new DatosPrueba(contexto).limpiar();
+    }
+
+    @Test
+    void losFormatosBinariosOcupanMenosQueJson() throws Exception {
+        int json = tamano(MediaType.APPLICATION_JSON, false);
+        int cbor = tamano(CBOR, false);
+        int smile = tamano(SMILE, false);
+
+        // Smile comparte los nombres de campo repetidos entre objetos; CBOR los repite como JSON
+        assertThat(cbor).isLessThan(json);
+        assertThat(smile).isLessThan(cbor);
+    }
+
+    @Test
+    void laAgendaCompactaOcupaMenosEnTodosLosFormatos() throws Exception {
+        for (MediaType formato : List.of(MediaType.APPLICATION_JSON, CBOR, SMILE)) {
+            assertThat(tamano(formato, true)).as(formato.toString()).isLessThan(tamano(formato, false));
+        }
+        assertThat(tamano(CBOR, true)).isLessThan(tamano(MediaType.APPLICATION_JSON, true));
+        assertThat(tamano(SMILE, true)).isLessThan(tamano(MediaType.APPLICATION_JSON, true));
+    }
+
+    @Test
+    void losTresFormatosDecodificanLosMismosDto() throws Exception {
+        Map<MediaType, ObjectMapper> mappers = mappers();
+        List<CitaDTO> citas = json.readValue(respuesta(MediaType.APPLICATION_JSON, false), new TypeReference<>() {
+        });
+        AgendaCompactaDTO agenda = json.readValue(respuesta(MediaType.APPLICATION_JSON, true), AgendaCompactaDTO.class);
+        assertThat(citas).hasSize(DOCTORES * CITAS_POR_DOCTOR);
+        assertThat(agenda.getCitas()).hasSize(DOCTORES * CITAS_POR_DOCTOR);
+
+        for (MediaType formato : List.of(CBOR, SMILE)) {
+            ObjectMapper mapper = mappers.get(formato);
+            List<CitaDTO> decodificadas = mapper.readValue(respuesta(formato, false), new TypeReference<>() {
+            });
+            assertThat(decodificadas).as(formato.toString()).isEqualTo(citas);
+            assertThat(mapper.readValue(respuesta(formato, true), AgendaCompactaDTO.class))
+                    .as(formato.toString()).isEqualTo(agenda);
+        }
+    }
+
+    // Bucle con calentamiento previo para que el JIT compile la serialización de cada formato; los
+    // tiempos quedan en el log como referencia y solo se exige que cada vuelta devuelva la agenda
+    @Test
+    void tiempoDeCodificarYDecodificarCadaFormato() throws Exception {
+        AgendaCompactaDTO agenda = json.readValue(respuesta(MediaType.APPLICATION_JSON, true), AgendaCompactaDTO.class);
+        for (Map.Entry<MediaType, ObjectMapper> entrada : mappers().entrySet()) {
+            ObjectMapper mapper = entrada.getValue();
+            AgendaCompactaDTO decodificada = null;
+            for (int i = 0; i < CALENTAMIENTO; i++) {
+                decodificada = mapper.readValue(mapper.writeValueAsBytes(agenda), AgendaCompactaDTO.class);
+            }
+
+            byte[] bytes = null;
+            long inicio = System.nanoTime();
+            for (int i = 0; i < ITERACIONES; i++) {
+                bytes = mapper.writeValueAsBytes(agenda);
+            }
+            long codificar = System.nanoTime() - inicio;
+            inicio = System.nanoTime();
+            for (int i = 0; i < ITERACIONES; i++) {
+                decodificada = mapper.readValue(bytes, AgendaCompactaDTO.class);
+            }
+            long decodificar = System.nanoTime() - inicio;
+
+            log.info("{}: {} bytes, codificar {} µs, decodificar {} µs por agenda", entrada.getKey(), bytes.length,
+                    codificar / 1_000 / ITERACIONES, decodificar / 1_000 / ITERACIONES);
+            assertThat(decodificada).as(entrada.getKey().toString()).isEqualTo(agenda);
+        }
+    }
+
+    // Mismos mappers que FormatosBinariosConfig registra para las respuestas
+    private Map<MediaType, ObjectMapper> mappers() {
+        Map<MediaType, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put(MediaType.APPLICATION_JSON, json);
+        mappers.put(CBOR, builder.factory(new CBORFactory()).build());
+        mappers.put(SMILE, builder.factory(new SmileFactory()).build());
+        return mappers;
+    }
+
+    private int tamano(MediaType formato, boolean compacto) throws Exception {
+        return respuesta(formato, compacto).length;
+    }
+
+    private byte[] respuesta(MediaType formato, boolean compacto) throws Exception {
+        return mockMvc.perform(get("/api/citas/fecha/{fecha}", fecha)
+                        .param("compacto", String.valueOf(compacto))
+                        .accept(formato))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(formato))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+}
@@ -0,0 +1,133 @@
+package com.hospital.citas.config;
+
+import com.hospital.citas.model.Doctor;
+import com.hospital.citas.repository.DoctorRepository;
+import com.hospital.citas.repository.EventoCambioRepository;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.sql.DataSource;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Primario y réplica sobre la misma base H2: el primario trabaja en el esquema PRIMARIO y la
+// réplica lo ve por su ruta de búsqueda, salvo las tablas que la prueba copia en su esquema
+// PUBLIC para simular una réplica atrasada
+@SpringBootTest(properties = {
+        "hospital.replicas.habilitadas=true",
+        "hospital.replicas.lectura-propia-s=5",
+        "hospital.replicas.consulta-retraso=SELECT COALESCE(MAX(SEGUNDOS), 0) FROM RETRASO_REPLICA"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReplicasLecturaPropiaTest {
+
+    @DynamicPropertySource
+    static void basesDeDatos(DynamicPropertyRegistry registro) {
+        registro.add("spring.datasource.url", () ->
+                "jdbc:h2:mem:replicas;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS PRIMARIO\\;SET SCHEMA PRIMARIO");
+        registro.add("hospital.replicas.urls", () ->
+                "jdbc:h2:mem:replicas;DB_CLOSE_DELAY=-1;INIT=SET SCHEMA_SEARCH_PATH PRIMARIO");
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private RuteoDataSource ruteoDataSource;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private EventoCambioRepository eventoCambioRepository;
+
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void replicaAtrasada() {
+        jdbc = new JdbcTemplate(dataSource);
+        doctorRepository.save(new Doctor(null, "Juan", "García", "Pérez", "Cardiología", null));
+        // La réplica se queda con los doctores de este momento
+        jdbc.execute("CREATE TABLE PUBLIC.DOCTORES AS SELECT * FROM PRIMARIO.DOCTORES");
+        jdbc.execute("CREATE TABLE PRIMARIO.RETRASO_REPLICA (SEGUNDOS INT)");
+        ruteoDataSource.verificarReplicas();
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbc.execute("DROP TABLE IF EXISTS PUBLIC.DOCTORES");
+        jdbc.execute("DROP TABLE IF EXISTS PRIMARIO.RETRASO_REPLICA");
+        eventoCambioRepository.deleteAllInBatch();
+        doctorRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void lasLecturasVanALaReplicaSalvoTrasUnaEscrituraPropia() throws Exception {
+        MvcResult escritura = mockMvc.perform(post("/api/doctores")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"María\",\"apellidoPaterno\":\"López\","
+                                + "\"apellidoMaterno\":\"Sánchez\",\"especialidad\":\"Cardiología\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().maxAge(LecturaPropiaFilter.COOKIE, 5))
+                .andReturn();
+        Cookie fijarPrimario = escritura.getResponse().getCookie(LecturaPropiaFilter.COOKIE);
+
+        // Sin la cookie se lee de la réplica, que todavía no tiene al doctor nuevo
+        mockMvc.perform(get("/api/doctores"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].nombre", contains("Juan")));
+
+        // Con la cookie el mismo cliente lee del primario y ve su escritura
+        mockMvc.perform(get("/api/doctores").cookie(fijarPrimario))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].nombre", hasItem("María")));
+    }
+
+    @Test
+    void laInterfazWebPuedeDevolverLaCookieDesdeSuOrigen() throws Exception {
+        // Sin Access-Control-Allow-Credentials el navegador descarta la cookie de una respuesta CORS
+        mockMvc.perform(post("/api/doctores")
+                        .header("Origin", "http://localhost:3000")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"María\",\"apellidoPaterno\":\"López\","
+                                + "\"apellidoMaterno\":\"Sánchez\",\"especialidad\":\"Cardiología\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Access-Control-Allow-Origin", "http://localhost:3000"))
+                .andExpect(header().string("Access-Control-Allow-Credentials", "true"))
+                .andExpect(cookie().exists(LecturaPropiaFilter.COOKIE));
+    }
+
+    @Test
+    void unaReplicaMasAtrasadaQueLaVentanaDejaDeRecibirLecturas() throws Exception {
+        doctorRepository.save(new Doctor(null, "María", "López", "Sánchez", "Cardiología", null));
+        jdbc.update("INSERT INTO PRIMARIO.RETRASO_REPLICA (SEGUNDOS) VALUES (60)");
+        ruteoDataSource.verificarReplicas();
+
+        mockMvc.perform(get("/api/doctores"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].nombre", hasItem("María")));
+    }
+}
@@ -0,0 +1,173 @@
+package com.hospital.citas.config;
+
+import com.hospital.citas.model.Cita;
+import com.hospital.citas.model.Consultorio;
+import com.hospital.citas.model.Doctor;
+import com.hospital.citas.model.EventoCambio;
+import com.hospital.citas.model.Paciente;
+import com.hospital.citas.repository.CitaRepository;
+import com.hospital.citas.repository.ConsultorioRepository;
+import com.hospital.citas.repository.DoctorRepository;
+import com.hospital.citas.repository.EventoCambioRepository;
+import com.hospital.citas.repository.PacienteRepository;
+import com.hospital.citas.service.OcupacionService;
+import com.hospital.citas.service.impl.CambiosServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Dos sedes, cada una con su base H2: la central la crea Hibernate y la norte SedesConfig
+@SpringBootTest(properties = {
+        "hospital.sedes.habilitadas=true",
+        "hospital.sedes.predeterminada=central",
+        "spring.datasource.url=jdbc:h2:mem:sede-central;DB_CLOSE_DELAY=-1",
+        "hospital.sedes.fuentes.norte.url=jdbc:h2:mem:sede-norte;DB_CLOSE_DELAY=-1",
+        "hospital.sedes.inicializar-esquema=true",
+        "hospital.sedes.datos="
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SedesTest {
+
+    private static final String CURP = "SAGP800115HDFNMD04";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Sedes sedes;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private ConsultorioRepository consultorioRepository;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private EventoCambioRepository eventoCambioRepository;
+
+    @Autowired
+    private CambiosServiceImpl cambiosService;
+
+    @Autowired
+    private OcupacionService ocupacionService;
+
+    @AfterEach
+    void limpiar() {
+        sedes.enCadaSede(sede -> {
+            eventoCambioRepository.deleteAllInBatch();
+            citaRepository.deleteAllInBatch();
+            doctorRepository.deleteAllInBatch();
+            consultorioRepository.deleteAllInBatch();
+            pacienteRepository.deleteAllInBatch();
+            return sede;
+        });
+    }
+
+    @Test
+    void cadaPeticionUsaLaBaseDeSuSede() throws Exception {
+        mockMvc.perform(post("/api/pacientes").header(SedeFilter.CABECERA, "norte")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"Pedro\",\"apellidos\":\"Sánchez Gómez\",\"curp\":\"" + CURP + "\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.sede").value("norte"));
+
+        mockMvc.perform(get("/api/pacientes").header(SedeFilter.CABECERA, "norte"))
+                .andExpect(jsonPath("$[*].curp", contains(CURP)));
+        mockMvc.perform(get("/api/pacientes"))
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/api/pacientes").header(SedeFilter.CABECERA, "oeste"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void laCurpSeValidaYNoSeRepiteEnUnaSede() throws Exception {
+        String paciente = "{\"nombre\":\"Pedro\",\"apellidos\":\"Sánchez Gómez\",\"curp\":\"%s\"}";
+        mockMvc.perform(post("/api/pacientes").contentType(MediaType.APPLICATION_JSON)
+                        .content(paciente.formatted(CURP)))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/api/pacientes").contentType(MediaType.APPLICATION_JSON)
+                        .content(paciente.formatted(CURP)))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/pacientes").contentType(MediaType.APPLICATION_JSON)
+                        .content(paciente.formatted(CURP + "XYZ")))
+                .andExpect(status().isBadRequest());
+        // La misma persona puede atenderse en otra sede
+        mockMvc.perform(post("/api/pacientes").header(SedeFilter.CABECERA, "norte")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(paciente.formatted(CURP)))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void elHistorialReuneLasCitasDeTodasLasSedes() throws Exception {
+        LocalDateTime manana = LocalDate.now().plusDays(1).atTime(9, 0);
+        ContextoSede.ejecutarEn("central", () -> cita("central", manana));
+        ContextoSede.ejecutarEn("norte", () -> cita("norte", manana.plusDays(1)));
+
+        mockMvc.perform(get("/api/sedes/pacientes/{curp}/citas", CURP))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].sede", contains("norte", "central")));
+        mockMvc.perform(get("/api/citas/fecha/{fecha}", manana.toLocalDate()).header(SedeFilter.CABECERA, "norte"))
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/api/sedes"))
+                .andExpect(jsonPath("$", containsInAnyOrder("central", "norte")));
+    }
+
+    @Test
+    void losCambiosDeOtraInstanciaSeAplicanEnCadaSede() {
+        cambiosService.sondearCambios();
+        LocalDateTime manana = LocalDate.now().plusDays(1).atTime(9, 0);
+
+        // Otra instancia agenda una cita en la sede norte
+        Cita cita = ContextoSede.ejecutarEn("norte", () -> {
+            Cita nueva = cita("norte", manana);
+            EventoCambio evento = new EventoCambio(null, EventoCambio.Entidad.CITA, nueva.getId(),
+                    manana.toLocalDate(), "otra-instancia", LocalDateTime.now());
+            eventoCambioRepository.save(evento);
+            return nueva;
+        });
+        cambiosService.sondearCambios();
+
+        int citas = ContextoSede.ejecutarEn("norte", () -> ocupacionService.obtenerOcupacion(
+                OcupacionService.Dimension.DOCTOR, cita.getDoctor().getId(),
+                manana.toLocalDate(), manana.toLocalDate()).getTotalCitas());
+        assertThat(citas).isEqualTo(1);
+    }
+
+    private Cita cita(String sede, LocalDateTime horario) {
+        Paciente paciente = pacienteRepository.save(new Paciente(null, "Pedro", "Sánchez Gómez", CURP, sede));
+        Doctor doctor = doctorRepository.save(new Doctor(null, "Juan", "García", "Pérez", "Cardiología", sede));
+        Consultorio consultorio = consultorioRepository.save(new Consultorio(null, 101, 1, sede));
+        Cita cita = new Cita();
+        cita.setPaciente(paciente);
+        cita.setDoctor(doctor);
+        cita.setConsultorio(consultorio);
+        cita.setHorarioConsulta(horario);
+        cita.setSede(sede);
+        return citaRepository.save(cita);
+    }
+}
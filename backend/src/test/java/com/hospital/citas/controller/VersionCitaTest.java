@@ -0,0 +1,94 @@
+package com.hospital.citas.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.citas.DatosPrueba;
+import com.hospital.citas.model.Cita;
+import com.hospital.citas.repository.CitaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Un cliente que envía la versión que leyó recibe 409 si otra operación modificó la cita después,
+// tanto al actualizarla como al cancelarla, y la cita queda como la dejó la otra operación
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class VersionCitaTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationContext contexto;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    private DatosPrueba datos;
+
+    @BeforeEach
+    void cargarAgenda() {
+        datos = new DatosPrueba(contexto).cargar();
+    }
+
+    @AfterEach
+    void limpiar() {
+        datos.limpiar();
+    }
+
+    @Test
+    void actualizarConVersionAnteriorDevuelveConflicto() throws Exception {
+        Long leida = datos.cita1.getVersion();
+        modificarEnOtraOperacion(datos.cita1);
+
+        Map<String, Object> cita = new LinkedHashMap<>();
+        cita.put("doctorId", datos.doctor1.getId());
+        cita.put("consultorioId", datos.consultorio1.getId());
+        cita.put("pacienteId", datos.paciente1.getId());
+        cita.put("horarioConsulta", datos.a(16));
+        cita.put("version", leida);
+        mockMvc.perform(put("/api/citas/{id}", datos.cita1.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(cita)))
+                .andExpect(status().isConflict());
+
+        Cita actual = citaRepository.findById(datos.cita1.getId()).orElseThrow();
+        assertThat(actual.isActiva()).isTrue();
+        assertThat(actual.getHorarioConsulta()).isEqualTo(datos.a(9));
+    }
+
+    @Test
+    void cancelarConVersionAnteriorDevuelveConflicto() throws Exception {
+        Long leida = datos.cita3.getVersion();
+        modificarEnOtraOperacion(datos.cita3);
+
+        mockMvc.perform(patch("/api/citas/{id}/cancelar", datos.cita3.getId()).param("version", leida.toString()))
+                .andExpect(status().isConflict());
+
+        assertThat(citaRepository.findById(datos.cita3.getId()).orElseThrow().isActiva()).isTrue();
+    }
+
+    // Cambia el consultorio de la cita, lo que incrementa su versión sin cancelarla
+    private void modificarEnOtraOperacion(Cita cita) {
+        Cita otra = citaRepository.findById(cita.getId()).orElseThrow();
+        otra.setConsultorio(datos.consultorio3);
+        assertThat(citaRepository.save(otra).getVersion()).isGreaterThan(cita.getVersion());
+    }
+}
@@ -0,0 +1,98 @@
+package com.hospital.citas.service.impl;
+
+import com.hospital.citas.dto.CitaDTO;
+import com.hospital.citas.repository.CitaRepository;
+import com.hospital.citas.service.CitaService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Las lecturas idénticas concurrentes se agrupan antes de abrir la transacción: mientras la
+// primera consulta está en curso, las demás peticiones esperan sin tomar conexiones del pool
+@SpringBootTest
+@ActiveProfiles("test")
+class LecturasAgrupadasTest {
+
+    private static final int PETICIONES = 8;
+
+    @Autowired
+    private CitaService citaService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @SpyBean
+    private CitaRepository citaRepository;
+
+    @Test
+    void peticionesAgrupadasUsanUnaSolaConexion() throws Exception {
+        LocalDate fecha = LocalDate.now().plusDays(1);
+        CountDownLatch consultando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        // La primera consulta se queda detenida con su transacción (y su conexión) abierta
+        doAnswer(invocacion -> {
+            consultando.countDown();
+            liberar.await(10, TimeUnit.SECONDS);
+            return List.of();
+        }).when(citaRepository).findByFecha(fecha);
+
+        List<Thread> hilos = new CopyOnWriteArrayList<>();
+        ExecutorService ejecutor = Executors.newFixedThreadPool(PETICIONES, tarea -> {
+            Thread hilo = new Thread(tarea);
+            hilos.add(hilo);
+            return hilo;
+        });
+        try {
+            List<Future<List<CitaDTO>>> resultados = new ArrayList<>();
+            for (int i = 0; i < PETICIONES; i++) {
+                resultados.add(ejecutor.submit(() -> citaService.obtenerCitasPorFecha(fecha)));
+            }
+            assertThat(consultando.await(10, TimeUnit.SECONDS)).isTrue();
+            esperarBloqueados(hilos);
+
+            HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+            assertThat(pool.getHikariPoolMXBean().getActiveConnections()).isEqualTo(1);
+
+            liberar.countDown();
+            for (Future<List<CitaDTO>> resultado : resultados) {
+                assertThat(resultado.get(10, TimeUnit.SECONDS)).isEmpty();
+            }
+            verify(citaRepository, times(1)).findByFecha(fecha);
+        } finally {
+            liberar.countDown();
+            ejecutor.shutdownNow();
+        }
+    }
+
+    // Todas las peticiones están esperando: la primera en la consulta y el resto su resultado
+    private static void esperarBloqueados(List<Thread> hilos) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < limite) {
+            if (hilos.size() == PETICIONES && hilos.stream().allMatch(hilo -> hilo.getState() == Thread.State.WAITING
+                    || hilo.getState() == Thread.State.TIMED_WAITING)) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Las peticiones no llegaron a esperar la consulta en curso");
+    }
+}
@@ -0,0 +1,83 @@
+package com.hospital.citas.service.impl;
+
+import com.hospital.citas.DatosPrueba;
+import com.hospital.citas.dto.ListaEsperaDTO;
+import com.hospital.citas.model.Cita;
+import com.hospital.citas.model.Paciente;
+import com.hospital.citas.repository.CitaRepository;
+import com.hospital.citas.repository.ListaEsperaRepository;
+import com.hospital.citas.repository.PacienteRepository;
+import com.hospital.citas.service.CitaService;
+import com.hospital.citas.service.ListaEsperaService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Al cancelar una cita, el horario pasa al primer paciente en espera con una cita nueva;
+// la cancelada conserva su paciente original
+@SpringBootTest
+@ActiveProfiles("test")
+class ListaEsperaTest {
+
+    @Autowired
+    private CitaService citaService;
+
+    @Autowired
+    private ListaEsperaService listaEsperaService;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private ListaEsperaRepository listaEsperaRepository;
+
+    @Autowired
+    private ApplicationContext contexto;
+
+    private DatosPrueba datos;
+
+    @BeforeEach
+    void cargarAgenda() {
+        datos = new DatosPrueba(contexto).cargar();
+    }
+
+    @AfterEach
+    void limpiar() {
+        datos.limpiar();
+    }
+
+    @Test
+    void cancelarUnaCitaCreaOtraParaElPacienteEnEspera() {
+        // Un paciente sin citas, para que las reglas de agenda no lo descarten
+        Paciente enEspera = new Paciente();
+        enEspera.setNombre("Miguel");
+        enEspera.setApellidos("González Ruiz");
+        enEspera.setCurp("GORM751122HJCNZG02");
+        enEspera = contexto.getBean(PacienteRepository.class).save(enEspera);
+        ListaEsperaDTO registro = listaEsperaService.registrar(new ListaEsperaDTO(null, enEspera.getId(),
+                datos.doctor1.getId(), null, datos.manana, datos.manana,
+                LocalTime.of(11, 0), LocalTime.of(13, 0), null, true, null));
+
+        assertThat(citaService.cancelarCita(datos.cita3.getId(), null)).isTrue();
+
+        Cita cancelada = citaRepository.findById(datos.cita3.getId()).orElseThrow();
+        assertThat(cancelada.isActiva()).isFalse();
+        assertThat(cancelada.getPaciente().getId()).isEqualTo(datos.paciente2.getId());
+
+        Long citaAsignada = listaEsperaRepository.findById(registro.getId()).orElseThrow().getCita().getId();
+        assertThat(citaAsignada).isNotEqualTo(datos.cita3.getId());
+        Cita nueva = citaRepository.findById(citaAsignada).orElseThrow();
+        assertThat(nueva.isActiva()).isTrue();
+        assertThat(nueva.getPaciente().getId()).isEqualTo(enEspera.getId());
+        assertThat(nueva.getHorarioConsulta()).isEqualTo(datos.a(12));
+        assertThat(nueva.getConsultorio().getId()).isEqualTo(datos.consultorio1.getId());
+    }
+}
@@ -0,0 +1,135 @@
+package com.hospital.citas.service.impl;
+
+import com.hospital.citas.DatosPrueba;
+import com.hospital.citas.dto.OperacionMasivaDTO;
+import com.hospital.citas.model.Cita;
+import com.hospital.citas.model.Doctor;
+import com.hospital.citas.model.ReglaAgenda;
+import com.hospital.citas.repository.CitaRepository;
+import com.hospital.citas.repository.DoctorRepository;
+import com.hospital.citas.service.CitaService;
+import com.hospital.citas.service.ReglasAgendaService;
+import jakarta.validation.ValidationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+// Las operaciones masivas validan el conjunto completo antes de modificar nada, y no modifican
+// nada si otra operación cambió alguna de las citas entre la lectura y la actualización
+@SpringBootTest
+@ActiveProfiles("test")
+class OperacionesMasivasTest {
+
+    @Autowired
+    private CitaService citaService;
+
+    @Autowired
+    private ReglasAgendaService reglasAgendaService;
+
+    @Autowired
+    private ApplicationContext contexto;
+
+    @SpyBean
+    private CitaRepository citaRepository;
+
+    private DatosPrueba datos;
+    private ReglaAgenda reglaEspecialidad;
+
+    @BeforeEach
+    void cargarAgenda() {
+        datos = new DatosPrueba(contexto).cargar();
+    }
+
+    @AfterEach
+    void limpiar() {
+        // Por el servicio, para que la regla salga también de la caché
+        if (reglaEspecialidad != null) {
+            reglasAgendaService.eliminarRegla(reglaEspecialidad.getId());
+        }
+        datos.limpiar();
+    }
+
+    @Test
+    void rechazaReasignarADoctorConHorariosOcupados() {
+        // doctor2 ya tiene citas mañana a las 9:00 y a las 12:00, igual que doctor1
+        OperacionMasivaDTO operacion = new OperacionMasivaDTO(datos.doctor1.getId(), null,
+                datos.manana, datos.manana, datos.doctor2.getId(), null);
+
+        assertThatThrownBy(() -> citaService.reasignarCitasMasivo(operacion))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("El doctor destino ya tiene citas");
+        assertThat(doctorDe(datos.cita1)).isEqualTo(datos.doctor1.getId());
+        assertThat(doctorDe(datos.cita3)).isEqualTo(datos.doctor1.getId());
+    }
+
+    @Test
+    void rechazaReasignarAConsultorioOcupado() {
+        OperacionMasivaDTO operacion = new OperacionMasivaDTO(null, datos.consultorio1.getId(),
+                datos.manana, datos.manana, null, datos.consultorio2.getId());
+
+        assertThatThrownBy(() -> citaService.reasignarCitasMasivo(operacion))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("El consultorio destino ya está ocupado");
+        assertThat(citaRepository.findById(datos.cita1.getId()).orElseThrow().getConsultorio().getId())
+                .isEqualTo(datos.consultorio1.getId());
+    }
+
+    @Test
+    void rechazaExcederElMaximoDeLaEspecialidadDestino() {
+        Doctor pediatra = contexto.getBean(DoctorRepository.class)
+                .save(new Doctor(null, "Ana", "Flores", "Ruiz", "Pediatría", null));
+        ReglaAgenda regla = new ReglaAgenda();
+        regla.setTipo(ReglaAgenda.Tipo.MAXIMO_CITAS_ESPECIALIDAD);
+        regla.setValor(1);
+        regla.setEspecialidad("Pediatría");
+        reglaEspecialidad = reglasAgendaService.guardarRegla(regla);
+
+        // El pediatra tiene libres los dos horarios, pero la especialidad admite una cita al día
+        OperacionMasivaDTO operacion = new OperacionMasivaDTO(datos.doctor1.getId(), null,
+                datos.manana, datos.manana, pediatra.getId(), null);
+
+        assertThatThrownBy(() -> citaService.reasignarCitasMasivo(operacion))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("La especialidad Pediatría excedería el máximo de 1");
+        assertThat(doctorDe(datos.cita1)).isEqualTo(datos.doctor1.getId());
+    }
+
+    @Test
+    void unaCitaCanceladaDuranteLaOperacionRevierteTodo() {
+        // Otra operación cancela cita1 justo antes de la sentencia masiva
+        doAnswer(invocacion -> {
+            citaRepository.cancelarSiActivaYFutura(datos.cita1.getId(), null, LocalDateTime.now());
+            return invocacion.callRealMethod();
+        }).when(citaRepository).cancelarPorIds(anyList());
+        OperacionMasivaDTO operacion = new OperacionMasivaDTO(datos.doctor1.getId(), null,
+                datos.manana, datos.manana, null, null);
+
+        assertThatThrownBy(() -> citaService.cancelarCitasMasivo(operacion))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(activas(List.of(datos.cita1, datos.cita3))).containsOnly(true);
+    }
+
+    private Long doctorDe(Cita cita) {
+        return citaRepository.findById(cita.getId()).orElseThrow().getDoctor().getId();
+    }
+
+    private List<Boolean> activas(List<Cita> citas) {
+        return citas.stream()
+                .map(cita -> citaRepository.findById(cita.getId()).orElseThrow().isActiva())
+                .toList();
+    }
+}
@@ -0,0 +1,83 @@
+package com.hospital.citas.service.impl;
+
+import com.hospital.citas.DatosPrueba;
+import com.hospital.citas.dto.PropuestaConsultoriosDTO;
+import com.hospital.citas.model.Cita;
+import com.hospital.citas.model.Consultorio;
+import com.hospital.citas.repository.CitaRepository;
+import com.hospital.citas.service.OptimizacionConsultoriosService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Aplicar una propuesta que intercambia los consultorios de dos citas del mismo horario no debe
+// violar UK_consultorio_horario: el intercambio se hace pasando por el consultorio libre
+@SpringBootTest
+@ActiveProfiles("test")
+class OptimizacionConsultoriosTest {
+
+    @Autowired
+    private OptimizacionConsultoriosService optimizacionService;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private ApplicationContext contexto;
+
+    private DatosPrueba datos;
+
+    @BeforeEach
+    void cargarAgenda() {
+        datos = new DatosPrueba(contexto).cargar();
+        // A las 12:00 cada doctor queda en el consultorio del otro
+        mover(datos.cita3, datos.consultorio3);
+        mover(datos.cita4, datos.consultorio1);
+        mover(datos.cita3, datos.consultorio2);
+    }
+
+    @AfterEach
+    void limpiar() {
+        datos.limpiar();
+    }
+
+    @Test
+    void aplicarUnIntercambioRespetaLosConsultoriosUnicos() {
+        PropuestaConsultoriosDTO propuesta = optimizacionService.aplicar(datos.manana, datos.manana);
+
+        assertThat(propuesta.isAplicada()).isTrue();
+        assertThat(propuesta.getCambiosConsultorioAntes()).isEqualTo(2);
+        assertThat(propuesta.getCambiosConsultorioDespues()).isZero();
+        assertThat(propuesta.getMovimientos()).hasSize(2);
+
+        List<Cita> citas = citaRepository.findByFecha(datos.manana);
+        assertThat(citas).hasSize(4).allMatch(Cita::isActiva);
+        // Un consultorio por doctor en todo el día y ninguno repetido en un mismo horario
+        Map<Long, Set<Long>> porDoctor = citas.stream().collect(Collectors.groupingBy(
+                cita -> cita.getDoctor().getId(),
+                Collectors.mapping(cita -> cita.getConsultorio().getId(), Collectors.toSet())));
+        assertThat(porDoctor.values()).allMatch(consultorios -> consultorios.size() == 1);
+        citas.stream()
+                .collect(Collectors.groupingBy(Cita::getHorarioConsulta,
+                        Collectors.mapping(cita -> cita.getConsultorio().getId(), Collectors.toList())))
+                .values()
+                .forEach(consultorios -> assertThat(consultorios).doesNotHaveDuplicates());
+    }
+
+    private void mover(Cita cita, Consultorio consultorio) {
+        Cita actual = citaRepository.findById(cita.getId()).orElseThrow();
+        actual.setConsultorio(consultorio);
+        citaRepository.save(actual);
+    }
+}
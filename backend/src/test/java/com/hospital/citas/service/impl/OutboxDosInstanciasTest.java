@@ -0,0 +1,151 @@
+package com.hospital.citas.service.impl;
+
+import com.hospital.citas.CitasApplication;
+import com.hospital.citas.DatosPrueba;
+import com.hospital.citas.model.Cita;
+import com.hospital.citas.model.Consultorio;
+import com.hospital.citas.model.Doctor;
+import com.hospital.citas.model.EventoCambio;
+import com.hospital.citas.model.Paciente;
+import com.hospital.citas.repository.CitaRepository;
+import com.hospital.citas.service.CambiosService;
+import com.hospital.citas.service.OcupacionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Dos instancias sobre la misma base: una transacción que toma su id del outbox antes que otra
+// pero confirma después no debe perderse en la instancia que sondea, y con el planificador activo
+// un cambio llega a la otra instancia dentro del intervalo de sondeo
+class OutboxDosInstanciasTest {
+
+    private static final String URL = "--spring.datasource.url=jdbc:h2:mem:outbox-compartida;DB_CLOSE_DELAY=-1";
+
+    private static final long INTERVALO_MS = 200;
+
+    private ConfigurableApplicationContext instanciaA;
+    private ConfigurableApplicationContext instanciaB;
+    private DatosPrueba datos;
+
+    @BeforeEach
+    void iniciar() {
+        instanciaA = instancia("create");
+        datos = new DatosPrueba(instanciaA).cargar();
+        instanciaB = instancia("none");
+    }
+
+    @AfterEach
+    void detener() {
+        if (instanciaB != null) {
+            instanciaB.close();
+        }
+        if (instanciaA != null) {
+            instanciaA.close();
+        }
+    }
+
+    @Test
+    void unEventoQueConfirmaTardeSeAplicaEnLaOtraInstancia() throws Exception {
+        CambiosServiceImpl cambiosB = instanciaB.getBean(CambiosServiceImpl.class);
+        cambiosB.sondearCambios();
+        LocalDate fecha = datos.manana.plusDays(7);
+
+        // La primera transacción reserva su id y queda abierta
+        CountDownLatch insertada = new CountDownLatch(1);
+        CountDownLatch confirmar = new CountDownLatch(1);
+        CompletableFuture<Void> lenta = CompletableFuture.runAsync(() -> escribir(
+                datos.doctor1, datos.consultorio1, datos.paciente1, fecha, () -> {
+                    insertada.countDown();
+                    esperar(confirmar);
+                }));
+        assertThat(insertada.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // La segunda toma un id mayor y confirma antes
+        escribir(datos.doctor2, datos.consultorio2, datos.paciente2, fecha, () -> {
+        });
+        cambiosB.sondearCambios();
+        assertThat(citasDe(datos.doctor2, fecha)).isEqualTo(1);
+        assertThat(citasDe(datos.doctor1, fecha)).isZero();
+
+        confirmar.countDown();
+        lenta.get(10, TimeUnit.SECONDS);
+        cambiosB.sondearCambios();
+        assertThat(citasDe(datos.doctor1, fecha)).isEqualTo(1);
+    }
+
+    @Test
+    void conElPlanificadorLaOtraInstanciaInvalidaDentroDelIntervalo() throws Exception {
+        instanciaB.close();
+        instanciaB = instancia("none", "--hospital.planificacion.habilitada=true",
+                "--hospital.outbox.intervalo-ms=" + INTERVALO_MS);
+        LocalDate fecha = datos.manana.plusDays(7);
+        // El primer sondeo, al arrancar, solo fija la posición; la ocupación del día queda cargada
+        Thread.sleep(INTERVALO_MS);
+        assertThat(citasDe(datos.doctor1, fecha)).isZero();
+
+        escribir(datos.doctor1, datos.consultorio1, datos.paciente1, fecha, () -> {
+        });
+        long confirmada = System.nanoTime();
+
+        // Con fixed-delay, el cambio se ve a lo sumo un intervalo después del sondeo en curso
+        long limite = confirmada + TimeUnit.MILLISECONDS.toNanos(2 * INTERVALO_MS);
+        while (citasDe(datos.doctor1, fecha) == 0 && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertThat(citasDe(datos.doctor1, fecha)).isEqualTo(1);
+    }
+
+    private void escribir(Doctor doctor, Consultorio consultorio, Paciente paciente, LocalDate fecha,
+                          Runnable antesDeConfirmar) {
+        TransactionTemplate transaccion = new TransactionTemplate(
+                instanciaA.getBean(PlatformTransactionManager.class));
+        transaccion.executeWithoutResult(estado -> {
+            Cita cita = new Cita();
+            cita.setDoctor(doctor);
+            cita.setConsultorio(consultorio);
+            cita.setPaciente(paciente);
+            cita.setHorarioConsulta(fecha.atTime(10, 0));
+            cita.setActiva(true);
+            cita = instanciaA.getBean(CitaRepository.class).save(cita);
+            instanciaA.getBean(CambiosService.class).registrarCambio(EventoCambio.Entidad.CITA, cita.getId(), fecha);
+            antesDeConfirmar.run();
+        });
+    }
+
+    private int citasDe(Doctor doctor, LocalDate fecha) {
+        return instanciaB.getBean(OcupacionService.class)
+                .obtenerOcupacion(OcupacionService.Dimension.DOCTOR, doctor.getId(), fecha, fecha)
+                .getTotalCitas();
+    }
+
+    private static ConfigurableApplicationContext instancia(String ddlAuto, String... propiedades) {
+        List<String> argumentos = new ArrayList<>(List.of(URL, "--spring.jpa.hibernate.ddl-auto=" + ddlAuto));
+        argumentos.addAll(List.of(propiedades));
+        return new SpringApplicationBuilder(CitasApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                .run(argumentos.toArray(String[]::new));
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
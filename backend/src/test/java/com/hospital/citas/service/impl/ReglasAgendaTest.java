@@ -0,0 +1,128 @@
+package com.hospital.citas.service.impl;
+
+import com.hospital.citas.DatosPrueba;
+import com.hospital.citas.model.ReglaAgenda;
+import com.hospital.citas.service.ReglasAgendaService;
+import com.hospital.citas.service.reglas.SolicitudCita;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Evaluación de cada tipo de regla sobre la agenda de DatosPrueba (separación de 120 minutos y
+// máximo de 8 citas por doctor), y la caché de reglas compiladas al cambiar una regla
+@SpringBootTest
+@ActiveProfiles("test")
+class ReglasAgendaTest {
+
+    @Autowired
+    private ReglasAgendaService reglasAgendaService;
+
+    @Autowired
+    private ApplicationContext contexto;
+
+    private DatosPrueba datos;
+    private final List<ReglaAgenda> agregadas = new ArrayList<>();
+
+    @BeforeEach
+    void cargarAgenda() {
+        datos = new DatosPrueba(contexto).cargar();
+    }
+
+    @AfterEach
+    void limpiar() {
+        // Por el servicio, para que las reglas salgan también de la caché
+        agregadas.forEach(regla -> reglasAgendaService.eliminarRegla(regla.getId()));
+        datos.limpiar();
+    }
+
+    @Test
+    void separacionEntreCitasDelMismoPaciente() {
+        // paciente1 tiene citas a las 9:00 y a las 12:00
+        assertThat(evaluar(datos.paciente1.getId(), datos.doctor1.getId(), datos.consultorio3.getId(), 10))
+                .containsExactly("El paciente ya tiene una cita programada dentro del rango de 2 horas de la hora solicitada");
+        assertThat(evaluar(datos.paciente1.getId(), datos.doctor1.getId(), datos.consultorio3.getId(), 14)).isEmpty();
+    }
+
+    @Test
+    void maximoDeCitasDeUnDoctor() {
+        agregar(regla(ReglaAgenda.Tipo.MAXIMO_CITAS_DOCTOR, 2, regla -> regla.setDoctorId(datos.doctor1.getId())));
+
+        // doctor1 y doctor2 tienen dos citas cada uno, pero la regla solo limita a doctor1
+        assertThat(evaluar(datos.paciente2.getId(), datos.doctor1.getId(), datos.consultorio3.getId(), 15))
+                .containsExactly("El doctor ya tiene el máximo de 2 citas para el día solicitado");
+        assertThat(evaluar(datos.paciente2.getId(), datos.doctor2.getId(), datos.consultorio3.getId(), 15)).isEmpty();
+    }
+
+    @Test
+    void maximoDeCitasDeUnaEspecialidad() {
+        agregar(regla(ReglaAgenda.Tipo.MAXIMO_CITAS_ESPECIALIDAD, 4, regla -> regla.setEspecialidad(DatosPrueba.ESPECIALIDAD)));
+
+        assertThat(evaluar(datos.paciente2.getId(), datos.doctor2.getId(), datos.consultorio3.getId(), 15))
+                .containsExactly("La especialidad " + DatosPrueba.ESPECIALIDAD + " ya tiene el máximo de 4 citas para el día solicitado");
+    }
+
+    @Test
+    void horarioDeAtencionDeUnConsultorio() {
+        agregar(regla(ReglaAgenda.Tipo.HORARIO_CONSULTORIO, null, regla -> {
+            regla.setConsultorioId(datos.consultorio3.getId());
+            regla.setHoraApertura(LocalTime.of(8, 0));
+            regla.setHoraCierre(LocalTime.of(14, 0));
+        }));
+
+        assertThat(evaluar(datos.paciente2.getId(), datos.doctor1.getId(), datos.consultorio3.getId(), 15))
+                .containsExactly("El consultorio solo atiende de 08:00 a 14:00");
+        assertThat(evaluar(datos.paciente2.getId(), datos.doctor1.getId(), datos.consultorio1.getId(), 15)).isEmpty();
+        assertThat(reglasAgendaService.obtenerLimites().atiende(datos.consultorio3.getId(), LocalTime.of(13, 0))).isTrue();
+        assertThat(reglasAgendaService.obtenerLimites().atiende(datos.consultorio3.getId(), LocalTime.of(14, 0))).isFalse();
+    }
+
+    @Test
+    void cambiarUnaReglaInvalidaLaCache() {
+        // La primera evaluación deja en caché las reglas de DatosPrueba
+        assertThat(evaluar(datos.paciente2.getId(), datos.doctor1.getId(), datos.consultorio3.getId(), 15)).isEmpty();
+
+        ReglaAgenda maximo = agregar(regla(ReglaAgenda.Tipo.MAXIMO_CITAS_DOCTOR, 2, regla -> {
+        }));
+        assertThat(evaluar(datos.paciente2.getId(), datos.doctor1.getId(), datos.consultorio3.getId(), 15))
+                .containsExactly("El doctor ya tiene el máximo de 2 citas para el día solicitado");
+
+        maximo.setValor(3);
+        reglasAgendaService.guardarRegla(maximo);
+        assertThat(evaluar(datos.paciente2.getId(), datos.doctor1.getId(), datos.consultorio3.getId(), 15)).isEmpty();
+
+        maximo.setValor(2);
+        maximo.setActiva(false);
+        reglasAgendaService.guardarRegla(maximo);
+        assertThat(evaluar(datos.paciente2.getId(), datos.doctor1.getId(), datos.consultorio3.getId(), 15)).isEmpty();
+    }
+
+    private List<String> evaluar(Long pacienteId, Long doctorId, Long consultorioId, int hora) {
+        return reglasAgendaService.evaluar(new SolicitudCita(pacienteId, doctorId, DatosPrueba.ESPECIALIDAD,
+                consultorioId, datos.a(hora)));
+    }
+
+    private ReglaAgenda agregar(ReglaAgenda regla) {
+        ReglaAgenda guardada = reglasAgendaService.guardarRegla(regla);
+        agregadas.add(guardada);
+        return guardada;
+    }
+
+    private static ReglaAgenda regla(ReglaAgenda.Tipo tipo, Integer valor, Consumer<ReglaAgenda> ajuste) {
+        ReglaAgenda regla = new ReglaAgenda();
+        regla.setTipo(tipo);
+        regla.setValor(valor);
+        ajuste.accept(regla);
+        return regla;
+    }
+}
@@ -120,7 +120,8 @@ export default function EditarCita() {
         doctorId: parseInt(data.doctorId),
         consultorioId: parseInt(data.consultorioId),
         pacienteId: parseInt(data.pacienteId),
-        horarioConsulta: fechaHora.toISOString()
+        horarioConsulta: fechaHora.toISOString(),
+        version: cita?.version
       };
       
       await updateCita(citaId, citaData);
@@ -143,7 +144,7 @@ export default function EditarCita() {
     if (confirm('¿Está seguro de que desea cancelar esta cita? Esta acción no se puede deshacer.')) {
       try {
         setLoading(true);
-        await cancelarCita(citaId);
+        await cancelarCita(citaId, cita?.version);
         toast.success('Cita cancelada exitosamente');
         router.push('/citas');
       } catch (error) {
@@ -107,9 +107,9 @@ export default function ListaCitas() {
     }
   };
 
-  const handleCancelarCita = async (id: number) => {
+  const handleCancelarCita = async (id: number, version?: number) => {
     try {
-      await cancelarCita(id);
+      await cancelarCita(id, version);
       toast.success('Cita cancelada exitosamente');
       // Actualizar la lista de citas
       filtrarCitas();
@@ -337,7 +337,7 @@ export default function ListaCitas() {
                         variant="outlined"
                         color="error"
                         startIcon={<CancelIcon />}
-                        onClick={() => handleCancelarCita(cita.id)}
+                        onClick={() => handleCancelarCita(cita.id, cita.version)}
                       >
                         Cancelar
                       </Button>
@@ -1,9 +1,13 @@
 import axios from 'axios';
+import { BusquedaCitas, Cita, Pagina } from '@/types';
 
 const API_URL = process.env.NEXT_PUBLIC_API_URL || 'http://localhost:8080/api';
 
+// withCredentials envía las cookies del API, entre ellas la que fija las lecturas en el primario
+// justo después de una escritura propia
 const api = axios.create({
   baseURL: API_URL,
+  withCredentials: true,
   headers: {
     'Content-Type': 'application/json',
   },
@@ -93,8 +97,8 @@ export const updateCita = async (id: number, cita: any) => {
   return response.data;
 };
 
-export const cancelarCita = async (id: number) => {
-  const response = await api.patch(`/citas/${id}/cancelar`);
+export const cancelarCita = async (id: number, version?: number) => {
+  const response = await api.patch(`/citas/${id}/cancelar`, null, { params: { version } });
   return response.data;
 };
 
@@ -111,4 +115,10 @@ export const getCitasByDoctorAndFecha = async (doctorId: number, fecha: string)
 export const getCitasByConsultorioAndFecha = async (consultorioId: number, fecha: string) => {
   const response = await api.get(`/citas/consultorio/${consultorioId}/fecha/${fecha}`);
   return response.data;
-}; 
\ No newline at end of file
+}; 
+export const buscarCitas = async (filtros: BusquedaCitas, pagina = 0, tamano = 20) => {
+  const response = await api.get('/citas/buscar', {
+    params: { ...filtros, page: pagina, size: tamano }
+  });
+  return response.data as Pagina<Cita>;
+};
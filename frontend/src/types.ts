@@ -22,6 +22,7 @@ export interface Paciente {
   telefono?: string;
   fechaNacimiento?: string;
   nss?: string;
+  curp?: string;
 }
 
 // Tipos para Consultorio
@@ -41,6 +42,8 @@ export interface Cita {
   pacienteId: number;
   horarioConsulta: string;
   activa: boolean;
+  version?: number;
+  sede?: string;
   nombrePaciente?: string;
   apellidosPaciente?: string;
   nombreDoctor?: string;
@@ -49,4 +52,23 @@ export interface Cita {
   especialidadDoctor?: string;
   numeroConsultorio?: number;
   pisoConsultorio?: number;
+}
+
+export interface BusquedaCitas {
+  pacienteId?: number;
+  doctorId?: number;
+  consultorioId?: number;
+  especialidad?: string;
+  piso?: number;
+  desde?: string;
+  hasta?: string;
+  activa?: boolean;
+}
+
+export interface Pagina<T> {
+  contenido: T[];
+  pagina: number;
+  tamano: number;
+  totalElementos: number;
+  totalPaginas: number;
 } 
\ No newline at end of file